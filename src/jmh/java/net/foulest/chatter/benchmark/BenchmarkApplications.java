@@ -0,0 +1,55 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.benchmark;
+
+import net.foulest.chatter.Chatter;
+import net.foulest.chatter.util.Application;
+
+/**
+ * Looks up the built-in applications used by the benchmarks.
+ */
+final class BenchmarkApplications {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BenchmarkApplications() {
+    }
+
+    /**
+     * Gets a built-in application by name.
+     *
+     * @param name The name of the application.
+     * @return The application.
+     */
+    static Application get(String name) {
+        return Chatter.getApplications().stream()
+                .filter(app -> app.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown application: " + name));
+    }
+
+    /**
+     * Gets the Minecraft application, which has the most inputs.
+     *
+     * @return The Minecraft application.
+     */
+    static Application minecraft() {
+        return get("Minecraft");
+    }
+}
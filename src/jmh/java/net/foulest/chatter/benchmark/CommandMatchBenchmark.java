@@ -0,0 +1,90 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.benchmark;
+
+import net.foulest.chatter.input.CommandIndex;
+import net.foulest.chatter.input.Input;
+import net.foulest.chatter.util.Application;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks matching chat messages against an application's inputs.
+ * <p>
+ * The message mix is mostly ordinary chat with a few commands,
+ * which is what the handler sees during a raid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandMatchBenchmark {
+
+    private static final String[] MESSAGES = {
+            "W", "lol", "mouse1", "  space  ", "PogChamp PogChamp", "s",
+            "what is going on", "LEFT", "gg", "e", "this streamer is great", "7"
+    };
+
+    private List<Input> inputs;
+    private CommandIndex commandIndex;
+    private int next;
+
+    /**
+     * Loads the Minecraft application, which has the most inputs.
+     */
+    @Setup
+    public void setup() {
+        Application application = BenchmarkApplications.minecraft();
+
+        inputs = application.getInputs();
+        commandIndex = application.getCommandIndex();
+    }
+
+    /**
+     * Matches a message with the precompiled command index.
+     *
+     * @return The matched command.
+     */
+    @Benchmark
+    public int commandIndex() {
+        return commandIndex.lookup(nextMessage());
+    }
+
+    /**
+     * Matches a message the way the handler originally did, as a baseline.
+     *
+     * @return The index of the matched input, or -1.
+     */
+    @Benchmark
+    public int linearScan() {
+        String trim = nextMessage().trim();
+
+        for (int i = 0; i < inputs.size(); i++) {
+            if (trim.equalsIgnoreCase(inputs.get(i).getInputName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String nextMessage() {
+        next = (next + 1) % MESSAGES.length;
+        return MESSAGES[next];
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.benchmark;
+
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import net.foulest.chatter.actuator.InputActuator;
+import net.foulest.chatter.chat.ChatInputHandler;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.output.RecordingInputSink;
+import net.foulest.chatter.util.Application;
+import net.foulest.chatter.vote.VoteEngine;
+import net.foulest.chatter.window.FixedWindowProvider;
+import net.foulest.chatter.window.FocusTracker;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the full chat-to-keypress path.
+ * <p>
+ * Synthetic {@link IRCMessageEvent}s go through the real handler into the
+ * vote engine, and each closed window is executed into a recording sink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HandlerPathBenchmark {
+
+    // Number of events handled per vote window
+    private static final int EVENTS_PER_WINDOW = 100;
+
+    private static final String[] MESSAGES = {
+            "W", "lol", "mouse1", "space", "PogChamp PogChamp", "S",
+            "what is going on", "left", "gg", "e", "this streamer is great", "7"
+    };
+
+    private IRCMessageEvent[] events;
+    private ChatInputHandler handler;
+    private VoteEngine voteEngine;
+    private InputActuator actuator;
+    private RecordingInputSink sink;
+    private int next;
+
+    /**
+     * Parses the synthetic events and wires the pipeline to a recording sink.
+     */
+    @Setup
+    public void setup() {
+        Application application = BenchmarkApplications.minecraft();
+
+        events = new IRCMessageEvent[MESSAGES.length];
+        for (int i = 0; i < MESSAGES.length; i++) {
+            events[i] = new IRCMessageEvent(rawMessage(i, MESSAGES[i]),
+                    Collections.emptyMap(), Collections.emptyMap(), Collections.emptySet());
+        }
+
+        Rectangle bounds = new Rectangle(0, 0, 1920, 1080);
+        FocusTracker focusTracker = new FocusTracker(new FixedWindowProvider("Minecraft 1.20", bounds),
+                application.getWindowTitles(), 100);
+        focusTracker.poll();
+
+        sink = new RecordingInputSink(1 << 16);
+        PipelineMetrics metrics = new PipelineMetrics();
+        actuator = new InputActuator(sink, focusTracker::getWindowBounds, metrics);
+        voteEngine = new VoteEngine(application.getCommandIndex().getOrdinals(), 500,
+                request -> actuator.execute(request.getInput(), request.isLongInput()), metrics);
+        handler = new ChatInputHandler(application, focusTracker, voteEngine, () -> true, metrics);
+    }
+
+    /**
+     * Stops the actuator thread.
+     */
+    @TearDown
+    public void tearDown() {
+        actuator.shutdown();
+    }
+
+    /**
+     * Handles one event, closing the vote window every {@value #EVENTS_PER_WINDOW} events.
+     *
+     * @return The number of events emitted into the sink so far.
+     */
+    @Benchmark
+    public long handleEvent() {
+        handler.accept(events[next % events.length]);
+
+        if (++next % EVENTS_PER_WINDOW == 0) {
+            voteEngine.closeWindow();
+        }
+        return sink.getEventCount();
+    }
+
+    private static String rawMessage(int index, String message) {
+        String user = "viewer" + index;
+        return "@badge-info=;badges=;color=;display-name=" + user + ";emotes=;first-msg=0;flags=;"
+                + "id=00000000-0000-0000-0000-00000000000" + (index % 10) + ";mod=0;room-id=1000;"
+                + "subscriber=0;tmi-sent-ts=1700000000000;turbo=0;user-id=" + (2000 + index) + ";user-type= "
+                + ":" + user + "!" + user + "@" + user + ".tmi.twitch.tv PRIVMSG #chatter :" + message;
+    }
+}
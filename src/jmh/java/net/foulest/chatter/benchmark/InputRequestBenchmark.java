@@ -0,0 +1,56 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.benchmark;
+
+import net.foulest.chatter.input.Input;
+import net.foulest.chatter.input.InputRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the allocation rate of input requests.
+ * <p>
+ * Run with the gc profiler to see the bytes allocated per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InputRequestBenchmark {
+
+    private Input input;
+    private long timestamp;
+
+    /**
+     * Picks the input used by every request.
+     */
+    @Setup
+    public void setup() {
+        input = BenchmarkApplications.minecraft().getInputs().get(0);
+    }
+
+    /**
+     * Allocates a new input request.
+     *
+     * @return The new input request.
+     */
+    @Benchmark
+    public InputRequest allocate() {
+        return new InputRequest(input, (++timestamp & 1) == 0, timestamp);
+    }
+}
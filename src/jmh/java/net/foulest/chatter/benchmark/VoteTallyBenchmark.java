@@ -0,0 +1,93 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.benchmark;
+
+import net.foulest.chatter.input.InputOrdinals;
+import net.foulest.chatter.input.InputRequest;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.vote.OverloadPolicy;
+import net.foulest.chatter.vote.VoteEngine;
+import net.foulest.chatter.vote.VoteSettings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks tallying a window of votes and picking its winner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VoteTallyBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int votes;
+
+    // 100000 votes overflow the default window capacity, exercising the overload policy
+    @Param({"DROP_NEWEST", "RESERVOIR_SAMPLE", "COUNT_ONLY"})
+    public OverloadPolicy policy;
+
+    private InputOrdinals ordinals;
+    private VoteEngine voteEngine;
+
+    /**
+     * Creates an engine that is driven manually instead of by its scheduler.
+     *
+     * @param blackhole Consumes each window's winner.
+     */
+    @Setup
+    public void setup(Blackhole blackhole) {
+        ordinals = BenchmarkApplications.minecraft().getCommandIndex().getOrdinals();
+        VoteSettings settings = new VoteSettings(500, VoteSettings.DEFAULT_CAPACITY, policy,
+                VoteSettings.DEFAULT_VOTES_PER_USER);
+        voteEngine = new VoteEngine(ordinals, settings, System::currentTimeMillis, blackhole::consume,
+                new PipelineMetrics());
+    }
+
+    /**
+     * Submits a full window of votes from 1024 users and closes it.
+     *
+     * @return The winning input.
+     */
+    @Benchmark
+    public InputRequest submitAndClose() {
+        int size = ordinals.size();
+
+        for (int i = 0; i < votes; i++) {
+            voteEngine.submit(i % size, (i & 1) == 0, 0, 1, 1 + (i & 1023));
+        }
+        return voteEngine.closeWindow();
+    }
+
+    /**
+     * Submits a full window of votes from four threads and closes it.
+     *
+     * @return The winning input.
+     */
+    @Benchmark
+    @Threads(4)
+    public InputRequest contendedSubmit() {
+        int size = ordinals.size();
+
+        for (int i = 0; i < votes; i++) {
+            voteEngine.submit(i % size, (i & 1) == 0);
+        }
+        return voteEngine.closeWindow();
+    }
+}
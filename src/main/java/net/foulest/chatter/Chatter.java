@@ -20,32 +20,63 @@ package net.foulest.chatter;
 import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
 import com.github.philippheuer.events4j.core.EventManager;
 import com.github.philippheuer.events4j.reactor.ReactorEventHandler;
-import com.github.twitch4j.TwitchClient;
-import com.github.twitch4j.TwitchClientBuilder;
 import com.github.twitch4j.chat.TwitchChat;
+import com.github.twitch4j.chat.TwitchChatBuilder;
 import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
 import com.github.twitch4j.chat.events.channel.UserStateEvent;
-import com.sun.jna.Native;
-import com.sun.jna.platform.win32.WinDef;
-import com.sun.jna.win32.StdCallLibrary;
-import lombok.Cleanup;
-import lombok.Synchronized;
 import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.actuator.AxisPolicy;
+import net.foulest.chatter.actuator.InputActuator;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import net.foulest.chatter.config.ChatterConfig;
+import net.foulest.chatter.input.CommandIndex;
 import net.foulest.chatter.input.Input;
+import net.foulest.chatter.input.InputOrdinals;
 import net.foulest.chatter.input.InputRequest;
 import net.foulest.chatter.input.type.KeyInput;
+import net.foulest.chatter.input.type.MacroInput;
 import net.foulest.chatter.input.type.MouseInput;
+import net.foulest.chatter.journal.SessionJournal;
+import net.foulest.chatter.logging.RateLimitedLog;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.output.InputSink;
+import net.foulest.chatter.output.NoOpInputSink;
+import net.foulest.chatter.output.RobotInputSink;
+import net.foulest.chatter.profile.ProfileDirectory;
+import net.foulest.chatter.profile.ProfileSnapshot;
+import net.foulest.chatter.random.RandomDistribution;
+import net.foulest.chatter.random.RandomInputGenerator;
+import net.foulest.chatter.replay.ChatReplay;
+import net.foulest.chatter.replay.ReplayReport;
+import net.foulest.chatter.twitch.ChannelGroup;
+import net.foulest.chatter.twitch.ChannelPipeline;
+import net.foulest.chatter.twitch.ChannelRouter;
+import net.foulest.chatter.twitch.ConnectionLifecycle;
 import net.foulest.chatter.util.Application;
+import net.foulest.chatter.vote.OverloadPolicy;
+import net.foulest.chatter.vote.VoteEngine;
+import net.foulest.chatter.vote.VoteSettings;
+import net.foulest.chatter.vote.VoteStrategy;
+import net.foulest.chatter.window.FocusTracker;
+import net.foulest.chatter.window.TitleMatcher;
+import net.foulest.chatter.window.User32WindowProvider;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.List;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 /**
@@ -62,12 +93,55 @@ public final class Chatter {
     private Chatter() {
     }
 
-    private static Thread mouseInputThread;
-    private static final Collection<InputRequest> inputQueue = new ConcurrentLinkedQueue<>();
+    // Length of each vote window in milliseconds
+    private static final long VOTE_WINDOW_MILLIS = 500;
 
-    private static boolean isBroadcaster;
+    // How Twitch vote windows are sized, filled and counted
+    private static final VoteSettings VOTE_SETTINGS = new VoteSettings(VOTE_WINDOW_MILLIS,
+            VoteSettings.DEFAULT_CAPACITY, OverloadPolicy.RESERVOIR_SAMPLE, VoteSettings.DEFAULT_VOTES_PER_USER);
+
+    // How random mode's vote windows are sized, filled and counted; every vote counts, so no sample is drawn
+    private static final VoteSettings RANDOM_VOTE_SETTINGS = new VoteSettings(VOTE_WINDOW_MILLIS,
+            VoteSettings.DEFAULT_CAPACITY, OverloadPolicy.COUNT_ONLY, VoteSettings.DEFAULT_VOTES_PER_USER);
+
+    // How often the foreground window is polled in milliseconds
+    private static final long FOCUS_POLL_MILLIS = 100;
+
+    // How often the metrics summary is logged in seconds
+    private static final long METRICS_REPORT_SECONDS = 30;
+
+    // Directory of application profiles, which override or add to the built-in applications
+    private static final String DEFAULT_PROFILES_DIRECTORY = System.getProperty("chatter.profiles", "profiles");
+
+    // How long to wait for the broadcaster status to be verified in milliseconds
+    private static final long BROADCASTER_TIMEOUT_MILLIS = 5000;
+
+    // Random inputs picked per second unless configured
+    private static final double DEFAULT_RANDOM_RATE = 4;
+
+    // Most random inputs that can be picked per second
+    private static final double MAX_RANDOM_RATE = 10_000;
+
+    // How far random mode may fall behind its schedule before it skips ahead in nanoseconds
+    private static final long MAX_RANDOM_BACKLOG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Most random input lines logged per second, since fast random runs would flood the log
+    private static final int RANDOM_LINES_PER_SECOND = 10;
+
+    private static final PipelineMetrics metrics = new PipelineMetrics();
+    private static final RateLimitedLog randomLog = new RateLimitedLog(log, "random", RANDOM_LINES_PER_SECOND);
+
+    private static ChatterConfig config;
+    private static AxisPolicy axisPolicy;
+    private static Scanner scanner;
+    private static ProfileDirectory profiles;
+    private static InputActuator actuator;
+    private static FocusTracker focusTracker;
     private static Application application;
 
+    // Whether the application follows whichever application's window is in focus
+    private static boolean autoSelect;
+
     // List of applications to monitor and translate inputs for
     private static final List<Application> APPLICATIONS = new ArrayList<>();
 
@@ -103,7 +177,11 @@ public final class Chatter {
                         new KeyInput("L", KeyEvent.VK_A, 125, 1000),
                         new KeyInput("R", KeyEvent.VK_S, 125, 1000),
                         new KeyInput("START", KeyEvent.VK_ENTER, 125, 1000),
-                        new KeyInput("SELECT", KeyEvent.VK_BACK_SPACE, 125, 1000)
+                        new KeyInput("SELECT", KeyEvent.VK_BACK_SPACE, 125, 1000),
+                        MacroInput.sequence("COMBO", 50,
+                                new KeyInput("A", KeyEvent.VK_Z, 125, 250),
+                                new KeyInput("A", KeyEvent.VK_Z, 125, 250),
+                                new KeyInput("B", KeyEvent.VK_X, 125, 250))
                 )));
 
         // Minecraft
@@ -128,6 +206,9 @@ public final class Chatter {
                         new KeyInput("7", KeyEvent.VK_7, 200, 1000),
                         new KeyInput("8", KeyEvent.VK_8, 200, 1000),
                         new KeyInput("9", KeyEvent.VK_9, 200, 1000),
+                        MacroInput.chord("JUMP-FORWARD",
+                                new KeyInput("W", KeyEvent.VK_W, 500, 1000),
+                                new KeyInput("SPACE", KeyEvent.VK_SPACE, 500, 1000)),
                         new KeyInput("MOUSE1", InputEvent.BUTTON1_DOWN_MASK, 200, 1000),
                         new KeyInput("MOUSE2", InputEvent.BUTTON2_DOWN_MASK, 200, 1000),
                         new KeyInput("MOUSE3", InputEvent.BUTTON3_DOWN_MASK, 200, 1000),
@@ -155,119 +236,429 @@ public final class Chatter {
                 )));
     }
 
+    /**
+     * Gets the applications Chatter can translate inputs for.
+     *
+     * @return The supported applications.
+     */
+    public static @NotNull List<Application> getApplications() {
+        return Collections.unmodifiableList(APPLICATIONS);
+    }
+
     /**
      * Main method for Chatter.
      *
      * @param args The command-line arguments.
      */
     public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in, "UTF-8");
+        scanner = new Scanner(System.in, "UTF-8");
         System.out.println("\nStarting Chatter...");
 
+        // Reads the settings given as arguments, environment variables or a config file.
+        // Any setting given there is not prompted for.
+        try {
+            config = ChatterConfig.load(args, System.getenv());
+        } catch (IOException | IllegalArgumentException ex) {
+            log.error("Invalid configuration: {}", ex.getMessage());
+            return;
+        }
+
+        // The multi-release jar picks virtual threads on Java 21 and newer.
+        log.info("Running on {}", ChatterThreads.describe());
+
+        // Reads how opposite keys, such as LEFT and RIGHT, are resolved when both are pressed.
+        String axisPolicyName = config.get(ChatterConfig.AXIS_POLICY);
+        try {
+            axisPolicy = axisPolicyName == null ? InputActuator.DEFAULT_AXIS_POLICY
+                    : AxisPolicy.valueOf(axisPolicyName.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException ex) {
+            log.error("Invalid axis policy '{}'. It must be one of {}.", axisPolicyName,
+                    Arrays.toString(AxisPolicy.values()));
+            return;
+        }
+
         // Prompts the user for their desired input method.
         // Both random inputs and inputs from Twitch chat are supported.
-        System.out.println("\nSupported input methods:");
-        System.out.println("1. Random inputs");
-        System.out.println("2. Read inputs from Twitch chat");
-        System.out.print("\nEnter the input # you want: ");
+        if (config.get(ChatterConfig.MODE) == null) {
+            System.out.println("\nSupported input methods:");
+            System.out.println("1. Random inputs");
+            System.out.println("2. Read inputs from Twitch chat");
+            System.out.println("3. Replay a recorded chat log (offline)");
+        }
 
-        boolean randomMode = scanner.nextLine().trim().equals("1");
+        String inputMethod = setting(ChatterConfig.MODE, "\nEnter the input # you want: ");
 
-        // Asks the user for the application they want to monitor.
-        // This is the application the bot will translate inputs for.
-        System.out.println("\nSupported Applications:");
-        for (int i = 0; i < APPLICATIONS.size(); i++) {
-            System.out.println((i + 1) + ". " + APPLICATIONS.get(i).getName());
+        if (inputMethod == null) {
+            return;
         }
 
-        System.out.print("\nEnter the application # you want to monitor: ");
-        String appName = scanner.nextLine().trim();
+        boolean randomMode = inputMethod.equals("1") || inputMethod.equalsIgnoreCase("random");
+        boolean replayMode = inputMethod.equals("3") || inputMethod.equalsIgnoreCase("replay");
 
-        // Check if the input is numeric
-        if (appName.matches("\\d+")) {
-            int index = Integer.parseInt(appName) - 1;
+        // Loads the application profiles on top of the built-in applications.
+        String profilesDirectory = config.get(ChatterConfig.PROFILES);
+        profiles = new ProfileDirectory(Paths.get(profilesDirectory != null ? profilesDirectory
+                : DEFAULT_PROFILES_DIRECTORY), APPLICATIONS);
+        List<Application> applications = profiles.reload().getApplications();
 
-            if (index >= 0 && index < APPLICATIONS.size()) {
-                application = APPLICATIONS.get(index);
+        // Asks the user for the application they want to monitor.
+        // This is the application the bot will translate inputs for.
+        if (config.get(ChatterConfig.APPLICATION) == null) {
+            System.out.println("\nSupported Applications:");
+            for (int i = 0; i < applications.size(); i++) {
+                System.out.println((i + 1) + ". " + applications.get(i).getName());
             }
-        } else {
-            // Treat the input as an application name
-            application = APPLICATIONS.stream()
-                    .filter(app -> app.getName().equalsIgnoreCase(appName))
-                    .findFirst()
-                    .orElse(null);
+
+            System.out.println("0. Automatic (follows the application in focus)");
+        }
+
+        String applicationChoice = setting(ChatterConfig.APPLICATION,
+                "\nEnter the application # you want to monitor: ");
+
+        if (applicationChoice == null) {
+            return;
         }
 
+        autoSelect = isAutoSelect(applicationChoice);
+        application = autoSelect ? applications.get(0) : findApplication(applicationChoice);
+
         // Validates the application name.
         if (application == null) {
             log.warn("Invalid application name. It must be one of the applications listed above.");
             return;
         }
 
+        // Exposes the pipeline metrics over JMX.
+        metrics.registerMBean();
+
+        // Replays run offline and don't touch the real window or inputs.
+        if (replayMode) {
+            if (autoSelect) {
+                log.warn("Replays have no window in focus. Pick an application to replay against.");
+                return;
+            }
+
+            setupReplayMode();
+            return;
+        }
+
+        // Sets up the sink that presses keys and moves the mouse.
+        InputSink sink;
+        try {
+            sink = new RobotInputSink(new Robot());
+        } catch (AWTException ex) {
+            log.error("Failed to create the input robot.", ex);
+            return;
+        }
+
+        // Periodically logs a summary of the pipeline metrics.
+        metrics.startReporting(METRICS_REPORT_SECONDS);
+
         // Handles both random mode and Twitch mode.
         if (randomMode) {
-            setupRandomMode();
+            setupRandomMode(sink);
         } else {
-            setupTwitchMonitoring(scanner);
+            setupTwitchMonitoring(sink);
         }
 
         log.info("Chatter is now running!");
     }
 
+    /**
+     * Finds an application by its number in the list or by its name.
+     *
+     * @param appName The application's number (starting at 1) or name.
+     * @return The application, or null if there is no such application.
+     */
+    private static @Nullable Application findApplication(@NotNull String appName) {
+        ProfileSnapshot snapshot = profiles.getSnapshot();
+        List<Application> applications = snapshot.getApplications();
+
+        // Check if the input is numeric
+        if (appName.matches("\\d+")) {
+            int index = Integer.parseInt(appName) - 1;
+            return index >= 0 && index < applications.size() ? applications.get(index) : null;
+        }
+
+        // Treat the input as an application name
+        return snapshot.find(appName);
+    }
+
+    /**
+     * Gets a setting, prompting for it if it isn't configured.
+     *
+     * @param key    The setting's name.
+     * @param prompt The prompt to show if the setting isn't configured.
+     * @return The setting's value, or null if it isn't configured and there is no console to ask.
+     */
+    private static @Nullable String setting(@NotNull String key, @NotNull String prompt) {
+        String value = config.get(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        System.out.print(prompt);
+
+        if (!scanner.hasNextLine()) {
+            log.error("Missing setting '{}'. Pass --{} or set CHATTER_{} when running without a console.",
+                    key, key, key.toUpperCase(Locale.ROOT).replace('-', '_'));
+            return null;
+        }
+        return scanner.nextLine().trim();
+    }
+
+    /**
+     * Creates an application's vote strategy with its random choices seeded.
+     *
+     * @param app  The application.
+     * @param seed The seed of the strategy's random choices.
+     * @return The seeded vote strategy.
+     */
+    private static @NotNull VoteStrategy seededStrategy(@NotNull Application app, long seed) {
+        VoteStrategy strategy = app.getVoteStrategy().get();
+        strategy.seed(seed);
+        return strategy;
+    }
+
+    /**
+     * Checks whether an application choice asks to follow the application in focus.
+     *
+     * @param choice The application choice.
+     * @return Whether the choice is {@code 0} or {@code auto}.
+     */
+    private static boolean isAutoSelect(@NotNull String choice) {
+        return choice.equals("0") || choice.equalsIgnoreCase("auto");
+    }
+
     /**
      * Sets up random mode.
-     * This mode randomly generates inputs for the application.
+     * This mode randomly generates votes for the application's inputs.
+     * <p>
+     * Every input goes straight to the actuator, at the configured rate.
+     * With {@code --random-vote} the votes go through a vote engine with
+     * the application's vote strategy instead, like chat votes do, so the
+     * strategy's decisions and latency show up in the metrics summary;
+     * a window then executes only its winners. Inputs are picked
+     * with the application's random weights from a logged seed, so a run
+     * can be repeated with {@code --random-seed}. Vote windows are timed
+     * by the input schedule rather than the wall clock and the strategy
+     * is seeded too, so a seeded run also repeats the same decisions.
+     *
+     * @param sink The sink that receives the generated inputs.
      */
     @SuppressWarnings({"InfiniteLoopStatement", "BusyWait"})
-    private static void setupRandomMode() {
+    private static void setupRandomMode(@NotNull InputSink sink) {
+        // Reads the seed and rate before anything starts, so bad settings don't leave threads behind.
+        String seedSetting = config.get(ChatterConfig.RANDOM_SEED);
+        String rateSetting = config.get(ChatterConfig.RANDOM_RATE);
+        long seed;
+        double rate;
+
+        try {
+            seed = seedSetting == null ? new SecureRandom().nextLong() : Long.parseLong(seedSetting);
+            rate = rateSetting == null ? DEFAULT_RANDOM_RATE : Double.parseDouble(rateSetting);
+        } catch (NumberFormatException ex) {
+            log.error("Invalid random seed or rate: {}", ex.getMessage());
+            return;
+        }
+
+        if (!(rate > 0 && rate <= MAX_RANDOM_RATE)) {
+            log.error("Invalid random rate {}. It must be above 0 and at most {} inputs per second.",
+                    rateSetting, MAX_RANDOM_RATE);
+            return;
+        }
+
+        RandomInputGenerator generator = new RandomInputGenerator(seed);
+        log.info("Random mode seed: {} (run with --random-seed={} to repeat these inputs)", seed, seed);
+
+        // Starts tracking whether the application's window is in focus.
+        focusTracker = new FocusTracker(new User32WindowProvider(), application.getWindowTitles(), FOCUS_POLL_MILLIS);
+
+        // Matches every application's windows at once when following the application in focus.
+        if (autoSelect) {
+            focusTracker.setMatcher(new TitleMatcher<>(profiles.getSnapshot().getApplications(),
+                    Application::getWindowTitles));
+        }
+
+        focusTracker.start();
+        actuator = new InputActuator(sink, focusTracker::getWindowBounds, metrics, axisPolicy);
+
+        // Releases every held key when Chatter exits.
+        Runtime.getRuntime().addShutdownHook(new Thread(actuator::shutdown, "Chatter-Shutdown"));
+
+        // Inputs are paced against a fixed schedule, so a late wake-up is made up by the next inputs.
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long nextNanos = System.nanoTime();
+
+        // Decides the random votes the way the application decides chat's votes, if asked to.
+        Application voted = application;
+        AtomicLong scheduleNanos = null;
+        VoteEngine voteEngine = null;
+
+        if (config.getBoolean(ChatterConfig.RANDOM_VOTE)) {
+            // Times vote windows by the schedule, so the same seed closes them around the same picks.
+            AtomicLong schedule = new AtomicLong();
+            scheduleNanos = schedule;
+            voteEngine = new VoteEngine(voted.getCommandIndex().getOrdinals(), RANDOM_VOTE_SETTINGS,
+                    seededStrategy(voted, seed), () -> TimeUnit.NANOSECONDS.toMillis(schedule.get()),
+                    Chatter::executeRandomInput, metrics);
+        }
+
         while (true) {
             // Ignores messages if the application's window is not in focus.
-            String windowTitle = getForegroundWindowTitle();
-            if (windowTitle == null || application.getWindowTitles().stream().noneMatch(windowTitle::contains)) {
+            if (!focusTracker.isFocused()) {
                 log.info("Application not in focus. Waiting for focus...");
                 try {
                     Thread.sleep(1000);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
+
+                // Restarts the schedule instead of catching up on the time out of focus.
+                nextNanos = System.nanoTime();
                 continue;
             }
 
             // Randomly get one of the application's inputs.
-            Random random = new SecureRandom();
-            Input input = application.getInputs().get(random.nextInt(application.getInputs().size()));
-            boolean longInput = random.nextBoolean();
-
-            // Start the input.
-            if (input instanceof KeyInput) {
-                log.info("Starting random key input: {} ({})", input.getInputName(), longInput ? "long" : "short");
-                startKeyInput((KeyInput) input, longInput);
-
-            } else if (input instanceof MouseInput) {
-                log.info("Starting random mouse input: {} ({})", input.getInputName(), longInput ? "long" : "short");
-                startMouseInput((MouseInput) input, longInput);
+            Object focusedApplication = focusTracker.getMatchedOwner();
+            Application current = focusedApplication instanceof Application
+                    ? (Application) focusedApplication : application;
+
+            // Switches the vote engine over when another application comes into focus.
+            if (voteEngine != null && current != voted) {
+                voteEngine.setOrdinals(current.getCommandIndex().getOrdinals());
+                voteEngine.setStrategy(seededStrategy(current, seed));
+                voted = current;
             }
 
-            try {
-                Thread.sleep(250);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            RandomDistribution distribution = current.getRandomDistribution();
+            InputOrdinals ordinals = distribution.getOrdinals();
+            int command = generator.next(distribution);
+            int ordinal = CommandIndex.ordinalOf(command);
+            boolean longInput = CommandIndex.isLongInput(command);
+            long receivedNanos = System.nanoTime();
+            metrics.onReceived();
+
+            if (voteEngine == null) {
+                executeRandomInput(new InputRequest(ordinals.getInput(ordinal), ordinal, longInput,
+                        System.currentTimeMillis()));
+            } else {
+                // Closes the window if the schedule has passed its end, before voting in the next one.
+                voteEngine.tick();
+
+                if (voteEngine.submit(ordinals, ordinal, longInput, receivedNanos, 1, 0)) {
+                    metrics.onQueued(receivedNanos);
+                }
+
+                scheduleNanos.addAndGet(periodNanos);
             }
+
+            nextNanos += periodNanos;
+            long waitNanos = nextNanos - System.nanoTime();
+
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            } else if (waitNanos < -MAX_RANDOM_BACKLOG_NANOS) {
+                // Drops the backlog after a long stall instead of firing it all at once.
+                nextNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Executes an input decided from random votes.
+     *
+     * @param request The decided input request.
+     */
+    private static void executeRandomInput(@NotNull InputRequest request) {
+        Input input = request.getInput();
+        boolean longInput = request.isLongInput();
+
+        // Start the input.
+        if (input instanceof KeyInput) {
+            randomLog.info("Starting random key input: {} ({})", input.getInputName(), longInput ? "long" : "short");
+        } else if (input instanceof MouseInput) {
+            randomLog.info("Starting random mouse input: {} ({})", input.getInputName(), longInput ? "long" : "short");
+        } else if (input instanceof MacroInput) {
+            randomLog.info("Starting random macro input: {} ({})", input.getInputName(), longInput ? "long" : "short");
+        }
+
+        actuator.execute(input, longInput);
+    }
+
+    /**
+     * Sets up replay mode.
+     * This mode replays a recorded chat log or session journal through the input pipeline without a Twitch connection.
+     */
+    private static void setupReplayMode() {
+        // Asks the user for the chat log or session journal to replay.
+        // Each line of a chat log is either a raw IRC line or a JSON object with a message field.
+        String pathInput = setting(ChatterConfig.REPLAY_LOG,
+                "\nEnter the path of the chat log or session journal to replay: ");
+
+        if (pathInput == null) {
+            return;
+        }
+
+        Path path = Paths.get(pathInput);
+
+        if (!Files.isRegularFile(path)) {
+            log.warn("Invalid chat log path. The file does not exist.");
+            return;
+        }
+
+        // Asks the user for the replay speed.
+        String speedInput = setting(ChatterConfig.REPLAY_SPEED, "\nEnter the replay speed (e.g. 1, 10, or max): ");
+        double speed;
+
+        if (speedInput == null) {
+            return;
+        }
+
+        try {
+            speed = speedInput.equalsIgnoreCase("max") ? 0 : Double.parseDouble(speedInput);
+        } catch (NumberFormatException ex) {
+            log.warn("Invalid replay speed. It must be a number or 'max'.");
+            return;
+        }
+
+        // Replays the chat log without emitting any real inputs.
+        log.info("Replaying {}...", path);
+        try {
+            ReplayReport report = new ChatReplay(application, NoOpInputSink.INSTANCE,
+                    VOTE_WINDOW_MILLIS, speed, metrics, config.get(ChatterConfig.REPLAY_CHANNEL)).replay(path);
+            log.info("{}", report);
+            log.info(metrics.summary(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(report.getWallNanos()))));
+        } catch (IOException ex) {
+            log.error("Failed to replay the chat log.", ex);
         }
     }
 
     /**
      * Sets up Twitch monitoring.
      * This mode listens for inputs from the broadcaster's Twitch chat.
+     * <p>
+     * Any number of channel groups can share the one chat connection;
+     * each group votes on its own application through its own pipeline.
+     * <p>
+     * The connection is kept open and reconnected by a {@link ConnectionLifecycle}
+     * until Chatter exits. If the bot is configured as already known to be the
+     * broadcaster, chat is handled as soon as the connection is up instead of
+     * after the role is confirmed; a channel that turns out not to be the
+     * bot's own is ignored from then on.
      *
-     * @param scanner The scanner to read input from.
+     * @param sink The sink that receives the executed inputs.
      */
-    private static void setupTwitchMonitoring(@NotNull Scanner scanner) {
+    private static void setupTwitchMonitoring(@NotNull InputSink sink) {
         // Asks the user for their Twitch OAuth token.
         // This is used to authenticate the bot with Twitch.
         // Get yours here: https://twitchapps.com/tmi
-        System.out.print("\nEnter your Twitch OAuth token: ");
-        String token = scanner.nextLine().trim();
+        String token = setting(ChatterConfig.TOKEN, "\nEnter your Twitch OAuth token: ");
+
+        if (token == null) {
+            return;
+        }
 
         // Validates the OAuth token.
         if (!token.startsWith("oauth:") || token.length() != 36) {
@@ -278,336 +669,187 @@ public final class Chatter {
         // Sets the OAuth credentials.
         OAuth2Credential credential = new OAuth2Credential("twitch", token);
 
-        // Asks the user for the Twitch channel they want to monitor.
-        // This is the channel the bot will listen to for events.
-        System.out.print("\nEnter the Twitch channel username you want to monitor: ");
-        String channel = scanner.nextLine().trim();
+        // Asks the user for the Twitch channels they want to monitor.
+        // Channels in a group vote together; groups are separated by semicolons
+        // and may name their own application after an equals sign.
+        if (config.get(ChatterConfig.CHANNELS) == null) {
+            System.out.println("\nEnter the Twitch channel username(s) you want to monitor.");
+            System.out.println("Separate channels with commas and give a channel more weight with ':'.");
+            System.out.println("Separate groups with ';' and pick another application with '=' (e.g. alice, bob:2; carol=2 or carol=auto).");
+        }
+
+        String channelsInput = setting(ChatterConfig.CHANNELS, "\nChannels: ");
+        List<ChannelGroup> groups = channelsInput == null ? null : parseChannelGroups(channelsInput);
 
-        // Validates the channel username.
-        if (channel.length() > 25 || channel.length() < 4 || channel.matches(".*\\W.*")) {
-            log.warn("Invalid channel username. It must be between 4 and 25 characters"
-                    + " and only contain letters, numbers, and underscores.");
+        if (groups == null) {
             return;
         }
 
-        // Sets up the Twitch client.
-        log.info("\nSetting up the Twitch client...");
-        @Cleanup TwitchClient twitchClient = TwitchClientBuilder.builder()
-                .withDefaultEventHandler(ReactorEventHandler.class)
-                .withDefaultAuthToken(credential)
-                .withEnableChat(true)
-                .withChatAccount(credential)
-                .build();
-
-        // Sets up the other variables.
-        EventManager eventManager = twitchClient.getEventManager();
-        TwitchChat chat = twitchClient.getChat();
-
-        // Listens for the broadcaster status on UserStateEvent.
-        eventManager.onEvent(UserStateEvent.class, event -> {
-            if (event.isBroadcaster()) {
-                isBroadcaster = true;
-            }
-        });
-
-        // Attempts to verify the broadcaster status.
-        log.info("Attempting to verify broadcaster status...");
-        long startTime = System.currentTimeMillis(); // Capture start time
-        long timeout = 5000; // Timeout in milliseconds (5 seconds)
-
-        // Waits for the broadcaster status to be verified.
-        // If the status is not verified within the timeout period, the program will exit.
-        while (!isBroadcaster) {
-            if (System.currentTimeMillis() - startTime > timeout) {
-                log.error("Failed to verify broadcaster status within the timeout period.");
-                System.exit(0);
-                return;
-            }
+        // Opens the session journal, if one is configured, before any vote can arrive.
+        String journalPath = config.get(ChatterConfig.JOURNAL);
+        SessionJournal journal = null;
 
-            // Wait for the broadcaster status to be verified
+        if (journalPath != null) {
             try {
-                //noinspection BusyWait
-                Thread.sleep(50);
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                log.error("Thread was interrupted.", ex);
+                journal = new SessionJournal(Paths.get(journalPath), SessionJournal.DEFAULT_COMMIT_MILLIS);
+                log.info("Recording the session journal to {}", journalPath);
+            } catch (IOException ex) {
+                log.error("Failed to open the session journal {}: {}", journalPath, ex.getMessage());
                 return;
             }
         }
 
-        // Verifies the broadcaster status.
-        log.info("Broadcaster status verified.");
+        // Sets up a pipeline for each channel group.
+        List<ChannelPipeline> pipelines = new ArrayList<>();
 
-        // Sends a message to the channel.
-        log.info("Sending a message to the channel...");
-        chat.leaveChannel(channel);
-        chat.joinChannel(channel);
-
-        synchronized (chat) {
-            chat.sendMessage(channel, "[Chatter] Input monitoring is enabled!");
-            chat.sendMessage(channel, "Valid inputs: " + application.getInputs().stream()
-                    .map(Input::getInputName).collect(Collectors.joining(", "))
-                    + " (Note: Uppercase inputs hold the button down for one"
-                    + " second; lowercase inputs press the button once.)"
-            );
-        }
-
-        // Listens for chat messages and processes them as inputs.
-        log.info("Setting up the input listener...");
-        eventManager.onEvent(IRCMessageEvent.class, event -> event.getMessage().ifPresent(message -> {
-            // Ignores messages that aren't sent by chatters.
-            if (!event.getCommandType().equals("PRIVMSG")) {
-                return;
-            }
-
-            // Ignores messages if the user is not the broadcaster.
-            if (!isBroadcaster) {
-                log.info("Ignoring message: {} (not the broadcaster)", message);
-                return;
-            }
-
-            // Ignores messages if the application's window is not in focus.
-            String windowTitle = getForegroundWindowTitle();
-            if (windowTitle == null || application.getWindowTitles().stream().noneMatch(windowTitle::contains)) {
-                log.info("Ignoring message: {} (application not in focus) | {}", message, event);
-                return;
-            }
+        for (ChannelGroup group : groups) {
+            ChannelPipeline pipeline = new ChannelPipeline(group, new User32WindowProvider(), sink,
+                    VOTE_SETTINGS, FOCUS_POLL_MILLIS, axisPolicy, metrics);
+            pipeline.setJournal(journal);
+            pipelines.add(pipeline);
 
-            String trim = message.trim();
-
-            for (Input input : application.getInputs()) {
-                String inputName = input.getInputName();
-
-                // Check if the trimmed message matches any allowed input (case-insensitive)
-                if (trim.equalsIgnoreCase(inputName)) {
-                    log.info("Adding input to queue: {}", trim);
-                    inputQueue.add(new InputRequest(trim, input, System.currentTimeMillis()));
-
-                    new Thread(() -> {
-                        // Add a delay to allow accumulation of inputs
-                        try {
-                            Thread.sleep(500);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            return;
-                        }
-
-                        // Process the queue
-                        if (!inputQueue.isEmpty()) {
-                            String mostFrequentInputName = findMostFrequentInput();
-
-                            if (mostFrequentInputName != null) {
-                                // Find the corresponding InputRequest for the most frequent input
-                                for (InputRequest request : inputQueue) {
-                                    if (request.getInput().getInputName().equalsIgnoreCase(mostFrequentInputName)) {
-                                        boolean isLongInput = request.getMessage().toUpperCase(Locale.ROOT).equals(request.getMessage());
-                                        log.info("Processing input: {}", request.getMessage());
-
-                                        if (request.getInput() instanceof KeyInput) {
-                                            startKeyInput((KeyInput) request.getInput(), isLongInput);
-                                        } else if (request.getInput() instanceof MouseInput) {
-                                            startMouseInput((MouseInput) request.getInput(), isLongInput);
-                                        }
-                                        break;
-                                    }
-                                }
-                            }
-
-                            inputQueue.clear(); // Clear the queue after processing
-                        }
-                    }).start();
-                    break;
-                }
+            if (group.isAutoSelect()) {
+                pipeline.selectAutomatically(profiles.getSnapshot());
             }
-        }));
-    }
-
-    /**
-     * Finds the most frequent input in the input queue.
-     *
-     * @return The name of the most frequent input, or null if the queue is empty.
-     */
-    private static @Nullable String findMostFrequentInput() {
-        if (inputQueue.isEmpty()) {
-            return null;
         }
 
-        Map<String, Integer> inputCount = new HashMap<>();
-        String mostFrequentInput = null;
-        int maxCount = 0;
-
-        // Tally occurrences of each input
-        for (InputRequest request : inputQueue) {
-            String inputName = request.getInput().getInputName().toLowerCase(Locale.ROOT); // Normalize input name to lower case
-            int count = inputCount.getOrDefault(inputName, 0) + 1;
-            inputCount.put(inputName, count);
-
-            if (count > maxCount) {
-                maxCount = count;
-                mostFrequentInput = inputName;
-            }
+        ChannelRouter router;
+        try {
+            router = new ChannelRouter(pipelines);
+        } catch (IllegalArgumentException ex) {
+            log.warn(ex.getMessage());
+            return;
         }
-        return mostFrequentInput;
-    }
 
-    /**
-     * Starts a key input.
-     *
-     * @param keyInput  The key input to start.
-     * @param longInput Whether the input is long or short.
-     */
-    @Synchronized
-    private static void startKeyInput(@NotNull KeyInput keyInput, boolean longInput) {
-        int keyCode = keyInput.getKeyCode();
-
-        boolean mouseInput = keyCode == InputEvent.BUTTON1_DOWN_MASK
-                || keyCode == InputEvent.BUTTON2_DOWN_MASK;
-
-        // Create a new thread for the new input
-        Thread inputThread = new Thread(() -> {
-            try {
-                Robot robot = new Robot();
-
-                // Press the key (or mouse button)
-                if (mouseInput) {
-                    robot.mousePress(keyCode);
-                } else {
-                    robot.keyPress(keyCode);
-                }
-
-                // Determine the input duration
-                long duration = longInput ? keyInput.getLongDuration() : keyInput.getShortDuration();
-                long startTime = System.currentTimeMillis();
-
-                // Keep the input pressed until the duration is reached or interrupted
-                while (System.currentTimeMillis() - startTime < duration) {
-                    if (Thread.interrupted()) {
-                        break;
-                    }
+        // Sets up the chat connection, which stays open until Chatter exits.
+        log.info("\nSetting up the Twitch chat...");
+        TwitchChatBuilder chatBuilder = TwitchChatBuilder.builder()
+                .withDefaultEventHandler(ReactorEventHandler.class)
+                .withChatAccount(credential);
 
-                    Thread.yield();
-                }
+        String chatUrl = config.get(ChatterConfig.CHAT_URL);
+        if (chatUrl != null) {
+            chatBuilder.withBaseUrl(chatUrl);
+        }
 
-                // Release the key (or mouse button)
-                if (mouseInput) {
-                    robot.mouseRelease(keyCode);
-                } else {
-                    robot.keyRelease(keyCode);
+        TwitchChat chat = chatBuilder.build();
+        EventManager eventManager = chat.getEventManager();
+
+        // Tracks the connection from connecting through verifying the broadcaster status to live.
+        // With the broadcaster status assumed, chat is handled as soon as the connection is up.
+        ConnectionLifecycle connection = new ConnectionLifecycle(chat, pipelines,
+                config.getBoolean(ChatterConfig.ASSUME_BROADCASTER), BROADCASTER_TIMEOUT_MILLIS,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        pipelines.forEach(pipeline -> connection.addListener(pipeline::onConnectionStateChanged));
+        eventManager.onEvent(IRCMessageEvent.class, connection::onMessage);
+        eventManager.onEvent(UserStateEvent.class, connection::onUserState);
+        connection.start();
+
+        // Closes the connection and stops the pipelines, releasing every held key, when Chatter exits.
+        // The journal is closed last, so it keeps everything the pipelines did up to the end.
+        SessionJournal sessionJournal = journal;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            connection.close();
+            pipelines.forEach(ChannelPipeline::stop);
+
+            if (sessionJournal != null) {
+                try {
+                    sessionJournal.close();
+                } catch (IOException ex) {
+                    log.error("Failed to close the session journal.", ex);
                 }
-            } catch (AWTException ignored) {
             }
-        });
-
-        // Start the new input thread
-        inputThread.start();
-    }
+        }, "Chatter-Shutdown"));
 
-    /**
-     * Starts a mouse input.
-     *
-     * @param mouseInput The mouse input to start.
-     * @param longInput  Whether the input is long or short.
-     */
-    @Synchronized
-    private static void startMouseInput(MouseInput mouseInput, boolean longInput) {
-        // If there is an ongoing input, interrupt it
-        if (mouseInputThread != null && mouseInputThread.isAlive()) {
-            mouseInputThread.interrupt();
+        // Joins every channel on the one chat connection.
+        for (ChannelGroup group : groups) {
+            for (String channel : group.getChannelWeights().keySet()) {
+                chat.leaveChannel(channel);
+                chat.joinChannel(channel);
+            }
         }
 
-        MouseInput.Direction direction = mouseInput.getDirection();
+        // Waits for the connection to go live.
+        // If the connection can't be made or the broadcaster status verified in time, the program will exit.
+        try {
+            connection.getLive().get();
+        } catch (ExecutionException ex) {
+            log.error(ex.getCause().getMessage());
+            System.exit(0);
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.error("Thread was interrupted.", ex);
+            return;
+        }
 
-        // Create a new thread for the new input
-        mouseInputThread = new Thread(() -> {
-            try {
-                Robot robot = new Robot();
-                WinDef.RECT rect = new WinDef.RECT();
-
-                if (MyUser32.INSTANCE.getWindowRect(MyUser32.INSTANCE.getForegroundWindow(), rect)) {
-                    // Define the boundaries of the window
-                    // This is used to ensure the mouse stays within the window's boundaries
-                    int buffer = 10;
-                    int minX = rect.left + buffer;
-                    int maxX = rect.right - buffer;
-                    int minY = rect.top + buffer;
-                    int maxY = rect.bottom - buffer;
-
-                    Point currentPosition = MouseInfo.getPointerInfo().getLocation();
-                    int x = currentPosition.x;
-                    int y = currentPosition.y;
-
-                    long duration = longInput ? mouseInput.getLongDuration() : mouseInput.getShortDuration();
-                    long endTime = System.currentTimeMillis() + duration;
-
-                    int movementDistance = 10;
-
-                    while (System.currentTimeMillis() < endTime) {
-                        switch (direction) {
-                            case UP:
-                                y = Math.max(y - movementDistance, minY);
-                                break;
-                            case DOWN:
-                                y = Math.min(y + movementDistance, maxY);
-                                break;
-                            case LEFT:
-                                x = Math.max(x - movementDistance, minX);
-                                break;
-                            case RIGHT:
-                                x = Math.min(x + movementDistance, maxX);
-                                break;
-                            default:
-                                break;
-                        }
-
-                        // Ensure the mouse stays within the window's boundaries
-                        x = Math.max(minX, Math.min(x, maxX));
-                        y = Math.max(minY, Math.min(y, maxY));
-
-                        // Moves the mouse
-                        robot.mouseMove(x, y);
-
-                        // Sleep for a short duration to prevent the mouse from moving too quickly
-                        Thread.sleep(25);
-                    }
+        // Sends a message to each channel.
+        log.info("Sending a message to the channels...");
+        synchronized (chat) {
+            for (ChannelGroup group : groups) {
+                String validInputs = (group.isAutoSelect() ? "Valid inputs depend on the game being played."
+                        : "Valid inputs: " + group.getApplication().getInputs().stream()
+                        .map(Input::getInputName).collect(Collectors.joining(", ")))
+                        + " (Note: Uppercase inputs hold the button down for one"
+                        + " second; lowercase inputs press the button once.)";
+
+                for (String channel : group.getChannelWeights().keySet()) {
+                    chat.sendMessage(channel, "[Chatter] Input monitoring is enabled!");
+                    chat.sendMessage(channel, validInputs);
                 }
-            } catch (AWTException | InterruptedException ignored) {
             }
-        });
-
-        // Start the new input thread
-        mouseInputThread.start();
-    }
-
-    /**
-     * Interface for the user32.dll library.
-     * This is used to get the title of the current foreground window.
-     */
-    interface MyUser32 extends StdCallLibrary {
-
-        MyUser32 INSTANCE = Native.load("user32", MyUser32.class);
+        }
 
-        WinDef.HWND getForegroundWindow();
+        // Starts the pipelines that pick one input per window.
+        pipelines.forEach(ChannelPipeline::start);
 
-        void getWindowTextA(WinDef.HWND hWnd, byte[] lpString, int nMaxCount);
+        // Reloads the application profiles whenever they change on disk.
+        profiles.addListener(snapshot -> pipelines.forEach(pipeline -> pipeline.onProfilesChanged(snapshot)));
+        profiles.start();
 
-        boolean getWindowRect(WinDef.HWND hWnd, WinDef.RECT rect);
+        // Listens for chat messages and routes them to their channel's pipeline.
+        log.info("Setting up the input listener...");
+        eventManager.onEvent(IRCMessageEvent.class, router);
     }
 
     /**
-     * Gets the title of the current foreground window.
+     * Parses channel groups such as {@code alice, bob:2; carol=2}.
+     * Groups without an application use the selected application;
+     * {@code =auto} makes a group follow the application in focus.
      *
-     * @return The title of the current foreground window.
+     * @param spec The channel groups to parse.
+     * @return The channel groups, or null if the groups are invalid.
      */
-    @SuppressWarnings("CheckForOutOfMemoryOnLargeArrayAllocation")
-    private static @Nullable String getForegroundWindowTitle() {
-        WinDef.HWND hwnd = MyUser32.INSTANCE.getForegroundWindow();
+    private static @Nullable List<ChannelGroup> parseChannelGroups(@NotNull String spec) {
+        List<ChannelGroup> groups = new ArrayList<>();
+
+        for (String groupSpec : spec.split(";")) {
+            String channels = groupSpec;
+            Application groupApplication = application;
+            boolean groupAutoSelect = autoSelect;
+            int equals = groupSpec.indexOf('=');
+
+            if (equals != -1) {
+                String applicationChoice = groupSpec.substring(equals + 1).trim();
+                channels = groupSpec.substring(0, equals);
+                groupAutoSelect = isAutoSelect(applicationChoice);
+                groupApplication = groupAutoSelect ? profiles.getSnapshot().getApplications().get(0)
+                        : findApplication(applicationChoice);
+
+                if (groupApplication == null) {
+                    log.warn("Invalid application name in '{}'. It must be one of the applications listed above.",
+                            groupSpec.trim());
+                    return null;
+                }
+            }
 
-        if (hwnd == null) {
-            return null;
+            try {
+                groups.add(new ChannelGroup(groupApplication, ChannelGroup.parseChannels(channels), groupAutoSelect));
+            } catch (IllegalArgumentException ex) {
+                log.warn(ex.getMessage());
+                return null;
+            }
         }
-
-        byte[] windowText = new byte[512];
-        MyUser32.INSTANCE.getWindowTextA(hwnd, windowText, 512);
-        return Native.toString(windowText).trim();
+        return groups;
     }
 }
@@ -0,0 +1,48 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.actuator;
+
+/**
+ * What the actuator does when a key is pressed while the opposite key on its axis is held,
+ * such as RIGHT while LEFT is held.
+ */
+public enum AxisPolicy {
+
+    /**
+     * Holds both keys, leaving the game to sort them out.
+     */
+    BOTH,
+
+    /**
+     * Releases the held key and presses the new one.
+     * The most recent decision wins.
+     */
+    LAST_WINS,
+
+    /**
+     * Ignores the new key until the held key is released.
+     * The earlier decision runs to completion.
+     */
+    FIRST_WINS,
+
+    /**
+     * Releases the held key and ignores the new one.
+     * Opposite decisions cancel each other out.
+     */
+    NEUTRAL
+}
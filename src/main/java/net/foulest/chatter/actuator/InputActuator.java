@@ -0,0 +1,301 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.actuator;
+
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import net.foulest.chatter.input.Input;
+import net.foulest.chatter.input.type.KeyInput;
+import net.foulest.chatter.input.type.MacroInput;
+import net.foulest.chatter.input.type.MacroTimeline;
+import net.foulest.chatter.input.type.MouseInput;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.output.InputSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executes inputs by emitting events into an {@link InputSink}.
+ * <p>
+ * Presses, releases, mouse frames and macro events are scheduled as timed
+ * events on one actuator thread instead of spinning a new thread per input, so any number
+ * of queued inputs costs a fixed thread count. Running every event on the
+ * same thread also keeps each press ordered before its release.
+ * <p>
+ * Every key goes through one {@link KeyStateTable}, so overlapping presses
+ * of a key merge into one longer press and opposite keys are arbitrated by
+ * an {@link AxisPolicy}. Shutting down releases every key still held.
+ */
+@Slf4j(topic = "Chatter")
+public class InputActuator {
+
+    /**
+     * The mouse frame rate used when the display's refresh rate is unknown.
+     */
+    public static final int DEFAULT_MOUSE_FRAME_RATE = 144;
+
+    /**
+     * The policy for opposite keys held at once when none is given.
+     */
+    public static final AxisPolicy DEFAULT_AXIS_POLICY = AxisPolicy.LAST_WINS;
+
+    private final PipelineMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final MouseMotion mouseMotion;
+    private final KeyStateTable keys;
+
+    /**
+     * Constructs a new input actuator that moves the mouse at the display's refresh rate.
+     *
+     * @param sink         The sink that receives the emitted events.
+     * @param windowBounds Supplies the bounds the mouse must stay within, or null if unknown.
+     * @param metrics      The metrics to record press latency and hold duration in.
+     */
+    public InputActuator(@NotNull InputSink sink, @NotNull Supplier<Rectangle> windowBounds,
+                         @NotNull PipelineMetrics metrics) {
+        this(sink, windowBounds, metrics, displayRefreshRate(), DEFAULT_AXIS_POLICY);
+    }
+
+    /**
+     * Constructs a new input actuator that moves the mouse at the display's refresh rate,
+     * with a policy for opposite keys.
+     *
+     * @param sink         The sink that receives the emitted events.
+     * @param windowBounds Supplies the bounds the mouse must stay within, or null if unknown.
+     * @param metrics      The metrics to record press latency and hold duration in.
+     * @param axisPolicy   What to do when a key is pressed while the opposite key is held.
+     */
+    public InputActuator(@NotNull InputSink sink, @NotNull Supplier<Rectangle> windowBounds,
+                         @NotNull PipelineMetrics metrics, @NotNull AxisPolicy axisPolicy) {
+        this(sink, windowBounds, metrics, displayRefreshRate(), axisPolicy);
+    }
+
+    /**
+     * Constructs a new input actuator.
+     *
+     * @param sink           The sink that receives the emitted events.
+     * @param windowBounds   Supplies the bounds the mouse must stay within, or null if unknown.
+     * @param metrics        The metrics to record press latency and hold duration in.
+     * @param mouseFrameRate The number of mouse moves per second while the mouse is moving.
+     */
+    public InputActuator(@NotNull InputSink sink, @NotNull Supplier<Rectangle> windowBounds,
+                         @NotNull PipelineMetrics metrics, int mouseFrameRate) {
+        this(sink, windowBounds, metrics, mouseFrameRate, DEFAULT_AXIS_POLICY);
+    }
+
+    /**
+     * Constructs a new input actuator with a policy for opposite keys.
+     *
+     * @param sink           The sink that receives the emitted events.
+     * @param windowBounds   Supplies the bounds the mouse must stay within, or null if unknown.
+     * @param metrics        The metrics to record press latency and hold duration in.
+     * @param mouseFrameRate The number of mouse moves per second while the mouse is moving.
+     * @param axisPolicy     What to do when a key is pressed while the opposite key is held.
+     */
+    public InputActuator(@NotNull InputSink sink, @NotNull Supplier<Rectangle> windowBounds,
+                         @NotNull PipelineMetrics metrics, int mouseFrameRate, @NotNull AxisPolicy axisPolicy) {
+        this.metrics = metrics;
+
+        // Drops delayed events on shutdown, since every held key is released right away instead.
+        ScheduledThreadPoolExecutor executor = ChatterThreads.newScheduler("Chatter-Actuator");
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduler = executor;
+
+        mouseMotion = new MouseMotion(sink, windowBounds, metrics, scheduler, mouseFrameRate);
+        keys = new KeyStateTable(sink, axisPolicy, KeyStateTable.DEFAULT_AXES);
+    }
+
+    /**
+     * Executes an input.
+     *
+     * @param input     The input to execute.
+     * @param longInput Whether the input is long or short.
+     */
+    public void execute(@NotNull Input input, boolean longInput) {
+        if (input instanceof KeyInput) {
+            pressKey((KeyInput) input, longInput);
+        } else if (input instanceof MouseInput) {
+            moveMouse((MouseInput) input, longInput);
+        } else if (input instanceof MacroInput) {
+            playMacro((MacroInput) input, longInput);
+        }
+    }
+
+    /**
+     * Presses a key (or mouse button) and schedules its release.
+     * Pressing a key that is already held keeps it held until the later of the two releases.
+     *
+     * @param keyInput  The key input to press.
+     * @param longInput Whether the input is long or short.
+     */
+    public void pressKey(@NotNull KeyInput keyInput, boolean longInput) {
+        int keyCode = keyInput.getKeyCode();
+        long duration = longInput ? keyInput.getLongDuration() : keyInput.getShortDuration();
+        long decidedNanos = System.nanoTime();
+
+        scheduler.execute(() -> {
+            long now = System.nanoTime();
+            metrics.onPressed(decidedNanos);
+
+            if (keys.hold(keyCode, now + TimeUnit.MILLISECONDS.toNanos(duration), now)) {
+                scheduler.schedule(() -> {
+                    long pressedNanos = keys.expire(keyCode, System.nanoTime());
+
+                    if (pressedNanos != -1) {
+                        metrics.onReleased(pressedNanos);
+                    }
+                }, duration, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Plays a macro's compiled timeline.
+     * The whole macro is driven by one task that reschedules itself for each next event.
+     *
+     * @param macroInput The macro input to play.
+     * @param longInput  Whether the input is long or short.
+     */
+    public void playMacro(@NotNull MacroInput macroInput, boolean longInput) {
+        scheduler.execute(new MacroPlayback(macroInput.getTimeline(longInput), longInput, System.nanoTime()));
+    }
+
+    /**
+     * Moves the mouse in a direction for the input's duration.
+     * A new movement blends with any movement still in progress.
+     *
+     * @param mouseInput The mouse input to execute.
+     * @param longInput  Whether the input is long or short.
+     */
+    public void moveMouse(@NotNull MouseInput mouseInput, boolean longInput) {
+        long decidedNanos = System.nanoTime();
+        scheduler.execute(() -> mouseMotion.start(mouseInput, longInput, decidedNanos));
+    }
+
+    /**
+     * Stops the actuator thread and releases every key still held.
+     * Events scheduled for later, such as pending releases, are dropped.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+
+        // The actuator thread is done with the table, so it is safe to release from here.
+        keys.releaseAll(System.nanoTime());
+    }
+
+    /**
+     * Gets the refresh rate of the default display.
+     *
+     * @return The refresh rate in hertz, or {@link #DEFAULT_MOUSE_FRAME_RATE} if unknown.
+     */
+    private static int displayRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return DEFAULT_MOUSE_FRAME_RATE;
+        }
+
+        int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return refreshRate > 0 ? refreshRate : DEFAULT_MOUSE_FRAME_RATE;
+    }
+
+    /**
+     * Fires every due event of a macro timeline per run and reschedules itself for the next one.
+     * Events are timed from the first run, so scheduling delays don't accumulate.
+     */
+    private final class MacroPlayback implements Runnable {
+
+        private final MacroTimeline timeline;
+        private final boolean longInput;
+        private final long decidedNanos;
+
+        private long startedNanos;
+        private int next;
+
+        MacroPlayback(MacroTimeline timeline, boolean longInput, long decidedNanos) {
+            this.timeline = timeline;
+            this.longInput = longInput;
+            this.decidedNanos = decidedNanos;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+
+            if (next == 0) {
+                startedNanos = now;
+                metrics.onPressed(decidedNanos);
+            }
+
+            while (next < timeline.size()
+                    && startedNanos + TimeUnit.MILLISECONDS.toNanos(timeline.getOffset(next)) <= now) {
+                fire(next++, now);
+            }
+
+            if (next == timeline.size()) {
+                metrics.onReleased(startedNanos);
+                return;
+            }
+
+            long delay = startedNanos + TimeUnit.MILLISECONDS.toNanos(timeline.getOffset(next)) - now;
+
+            try {
+                scheduler.schedule(this, delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ex) {
+                // Releases whatever the macro still holds if the actuator is shutting down.
+                for (; next < timeline.size(); next++) {
+                    if (timeline.getType(next) == MacroTimeline.EventType.RELEASE) {
+                        fire(next, now);
+                    }
+                }
+            }
+        }
+
+        private void fire(int index, long nanoTime) {
+            Input input = timeline.getInput(index);
+
+            switch (timeline.getType(index)) {
+                case PRESS:
+                    keys.pin(((KeyInput) input).getKeyCode(), nanoTime);
+                    break;
+                case RELEASE:
+                    keys.unpin(((KeyInput) input).getKeyCode(), nanoTime);
+                    break;
+                case MOVE:
+                    moveMouse((MouseInput) input, longInput);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
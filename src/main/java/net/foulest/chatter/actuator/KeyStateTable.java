@@ -0,0 +1,338 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.actuator;
+
+import net.foulest.chatter.output.InputSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+
+/**
+ * Tracks which keys and mouse buttons are held and merges overlapping holds of the same key.
+ * <p>
+ * Each key has a slot in flat arrays indexed by its key code. A slot keeps
+ * a release deadline for timed holds, a reference count for holds that
+ * are released explicitly (such as a macro's), and the time the key went
+ * down. A key is pressed when its first hold starts and released only once
+ * its deadline has passed and no explicit hold remains, so a second hold
+ * of a held key extends the press instead of being cut short by the first
+ * hold's release. Keys on opposite ends of an axis are arbitrated by an
+ * {@link AxisPolicy}.
+ * <p>
+ * All state is confined to the actuator thread.
+ */
+class KeyStateTable {
+
+    /**
+     * The pairs of opposite keys arbitrated when no others are given.
+     */
+    static final int[][] DEFAULT_AXES = {
+            {KeyEvent.VK_W, KeyEvent.VK_S},
+            {KeyEvent.VK_A, KeyEvent.VK_D},
+            {KeyEvent.VK_UP, KeyEvent.VK_DOWN},
+            {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT}
+    };
+
+    // Key codes below this map straight to their slot
+    private static final int LOW_KEYS = 0x400;
+
+    // Key codes from 0xF000 up, such as F13 to F24 and the editing keys, follow the low keys
+    private static final int HIGH_KEY_BASE = 0xF000;
+    private static final int HIGH_KEYS = 0x1000;
+
+    // Mouse buttons take the last three slots
+    private static final int MOUSE_SLOT = LOW_KEYS + HIGH_KEYS;
+    private static final int SLOTS = MOUSE_SLOT + 3;
+
+    // Marks a slot that isn't held
+    private static final long NOT_PRESSED = -1;
+
+    private final InputSink sink;
+    private final AxisPolicy axisPolicy;
+
+    // Key code of each slot, so a slot can be released without its original key code
+    private final int[] keyCodes = new int[SLOTS];
+
+    // Release deadline of each slot's timed holds
+    private final long[] deadlines = new long[SLOTS];
+
+    // Number of each slot's explicit holds
+    private final int[] references = new int[SLOTS];
+
+    // Time each slot was pressed, or NOT_PRESSED
+    private final long[] pressedAt = new long[SLOTS];
+
+    // Slot of the opposite key on each slot's axis, or -1
+    private final int[] opposites = new int[SLOTS];
+
+    /**
+     * Constructs a new key state table.
+     *
+     * @param sink       The sink that receives the presses and releases.
+     * @param axisPolicy What to do when opposite keys are held at once.
+     * @param axes       The pairs of opposite keys.
+     */
+    KeyStateTable(@NotNull InputSink sink, @NotNull AxisPolicy axisPolicy, @NotNull int[][] axes) {
+        this.sink = sink;
+        this.axisPolicy = axisPolicy;
+        Arrays.fill(pressedAt, NOT_PRESSED);
+        Arrays.fill(opposites, -1);
+
+        for (int[] axis : axes) {
+            int first = slot(axis[0]);
+            int second = slot(axis[1]);
+
+            if (first == -1 || second == -1 || first == second) {
+                throw new IllegalArgumentException("Invalid axis: " + Arrays.toString(axis));
+            }
+
+            opposites[first] = second;
+            opposites[second] = first;
+        }
+    }
+
+    /**
+     * Holds a key until a deadline, pressing it unless it is already held.
+     * The caller must call {@link #expire(int, long)} once the deadline has passed.
+     *
+     * @param keyCode  The key code or mouse button mask to hold.
+     * @param deadline The time to release the key at.
+     * @param now      The current time.
+     * @return Whether the key is held; false if the axis policy refused it.
+     */
+    boolean hold(int keyCode, long deadline, long now) {
+        int slot = slot(keyCode);
+
+        if (slot == -1) {
+            // Keys without a slot can't be tracked, so they are pressed as given.
+            press(keyCode, now);
+            return true;
+        }
+
+        if (!arbitrate(slot, now)) {
+            return false;
+        }
+
+        keyCodes[slot] = keyCode;
+        deadlines[slot] = Math.max(deadlines[slot], deadline);
+
+        if (pressedAt[slot] == NOT_PRESSED) {
+            pressedAt[slot] = now;
+            press(keyCode, now);
+        }
+        return true;
+    }
+
+    /**
+     * Holds a key until {@link #unpin(int, long)} is called for it, pressing it unless it is already held.
+     *
+     * @param keyCode The key code or mouse button mask to hold.
+     * @param now     The current time.
+     */
+    void pin(int keyCode, long now) {
+        int slot = slot(keyCode);
+
+        if (slot == -1) {
+            press(keyCode, now);
+            return;
+        }
+
+        if (!arbitrate(slot, now)) {
+            return;
+        }
+
+        keyCodes[slot] = keyCode;
+        references[slot]++;
+
+        if (pressedAt[slot] == NOT_PRESSED) {
+            pressedAt[slot] = now;
+            press(keyCode, now);
+        }
+    }
+
+    /**
+     * Ends a hold started by {@link #pin(int, long)}, releasing the key if nothing else holds it.
+     *
+     * @param keyCode The key code or mouse button mask to stop holding.
+     * @param now     The current time.
+     */
+    void unpin(int keyCode, long now) {
+        int slot = slot(keyCode);
+
+        if (slot == -1) {
+            release(keyCode, now);
+            return;
+        }
+
+        // The hold may already be gone if the axis policy released the key early.
+        if (references[slot] > 0) {
+            references[slot]--;
+            expire(keyCode, now);
+        }
+    }
+
+    /**
+     * Releases a key if its deadline has passed and nothing else holds it.
+     *
+     * @param keyCode The key code or mouse button mask to check.
+     * @param now     The current time.
+     * @return The time the key was pressed if this released it, or -1.
+     */
+    long expire(int keyCode, long now) {
+        int slot = slot(keyCode);
+
+        if (slot == -1) {
+            release(keyCode, now);
+            return -1;
+        }
+
+        if (pressedAt[slot] == NOT_PRESSED || references[slot] > 0 || now < deadlines[slot]) {
+            return -1;
+        }
+        return releaseSlot(slot, now);
+    }
+
+    /**
+     * Releases every held key.
+     *
+     * @param now The current time.
+     */
+    void releaseAll(long now) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (pressedAt[slot] != NOT_PRESSED) {
+                releaseSlot(slot, now);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key is held.
+     *
+     * @param keyCode The key code or mouse button mask to check.
+     * @return Whether the key is held.
+     */
+    boolean isHeld(int keyCode) {
+        int slot = slot(keyCode);
+        return slot != -1 && pressedAt[slot] != NOT_PRESSED;
+    }
+
+    /**
+     * Applies the axis policy before a key is held.
+     *
+     * @param slot The slot of the key about to be held.
+     * @param now  The current time.
+     * @return Whether the key may be held.
+     */
+    private boolean arbitrate(int slot, long now) {
+        int opposite = opposites[slot];
+
+        if (opposite == -1 || pressedAt[opposite] == NOT_PRESSED) {
+            return true;
+        }
+
+        switch (axisPolicy) {
+            case LAST_WINS:
+                releaseSlot(opposite, now);
+                return true;
+
+            case FIRST_WINS:
+                return false;
+
+            case NEUTRAL:
+                releaseSlot(opposite, now);
+                return false;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Releases a held slot and clears its holds.
+     *
+     * @param slot The slot to release.
+     * @param now  The current time.
+     * @return The time the slot was pressed.
+     */
+    private long releaseSlot(int slot, long now) {
+        long pressed = pressedAt[slot];
+        pressedAt[slot] = NOT_PRESSED;
+        deadlines[slot] = 0;
+        references[slot] = 0;
+        release(keyCodes[slot], now);
+        return pressed;
+    }
+
+    private void press(int keyCode, long now) {
+        if (isMouseButton(keyCode)) {
+            sink.mousePress(keyCode, now);
+        } else {
+            sink.keyPress(keyCode, now);
+        }
+    }
+
+    private void release(int keyCode, long now) {
+        if (isMouseButton(keyCode)) {
+            sink.mouseRelease(keyCode, now);
+        } else {
+            sink.keyRelease(keyCode, now);
+        }
+    }
+
+    /**
+     * Gets the slot of a key code.
+     *
+     * @param keyCode The key code or mouse button mask.
+     * @return The key's slot, or -1 if the key code has none.
+     */
+    private static int slot(int keyCode) {
+        switch (keyCode) {
+            case InputEvent.BUTTON1_DOWN_MASK:
+                return MOUSE_SLOT;
+            case InputEvent.BUTTON2_DOWN_MASK:
+                return MOUSE_SLOT + 1;
+            case InputEvent.BUTTON3_DOWN_MASK:
+                return MOUSE_SLOT + 2;
+            default:
+                break;
+        }
+
+        if (keyCode >= 0 && keyCode < LOW_KEYS) {
+            return keyCode;
+        }
+
+        if (keyCode >= HIGH_KEY_BASE && keyCode < HIGH_KEY_BASE + HIGH_KEYS) {
+            return LOW_KEYS + keyCode - HIGH_KEY_BASE;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a key code is one of the mouse button masks.
+     *
+     * @param keyCode The key code to check.
+     * @return Whether the key code is a mouse button.
+     */
+    private static boolean isMouseButton(int keyCode) {
+        return keyCode == InputEvent.BUTTON1_DOWN_MASK
+                || keyCode == InputEvent.BUTTON2_DOWN_MASK
+                || keyCode == InputEvent.BUTTON3_DOWN_MASK;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.actuator;
+
+import net.foulest.chatter.input.type.MouseInput;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.output.InputSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Moves the mouse one frame at a time at a fixed frame rate.
+ * <p>
+ * Frames run on a deadline grid anchored at the first frame, and missed
+ * frames are skipped, so late frames never push later ones back. Every
+ * active stroke moves the mouse by how far its eased curve has advanced
+ * since the last frame, so overlapping strokes add up instead of cutting
+ * each other off. The position is kept with sub-pixel precision and only
+ * whole pixels are emitted. If something else moves the mouse, such as a
+ * game re-centering it, movement continues from the new position.
+ * <p>
+ * All state is confined to the actuator thread.
+ */
+class MouseMotion implements Runnable {
+
+    // Distance to keep the mouse away from the window's edges in pixels
+    private static final int WINDOW_EDGE_BUFFER = 10;
+
+    private final InputSink sink;
+    private final Supplier<Rectangle> windowBounds;
+    private final PipelineMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final long framePeriodNanos;
+    private final List<Stroke> strokes = new ArrayList<>();
+
+    private boolean running;
+    private long nextFrameNanos;
+    private double x;
+    private double y;
+    private int emittedX;
+    private int emittedY;
+
+    /**
+     * Constructs a new mouse motion engine.
+     *
+     * @param sink         The sink that receives the mouse moves.
+     * @param windowBounds Supplies the bounds the mouse must stay within, or null if unknown.
+     * @param metrics      The metrics to record press latency and hold duration in.
+     * @param scheduler    The actuator's scheduler, which runs every frame.
+     * @param frameRate    The number of frames per second.
+     */
+    MouseMotion(@NotNull InputSink sink, @NotNull Supplier<Rectangle> windowBounds,
+                @NotNull PipelineMetrics metrics, @NotNull ScheduledExecutorService scheduler, int frameRate) {
+        if (frameRate <= 0) {
+            throw new IllegalArgumentException("Mouse frame rate must be positive: " + frameRate);
+        }
+
+        this.sink = sink;
+        this.windowBounds = windowBounds;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        framePeriodNanos = TimeUnit.SECONDS.toNanos(1) / frameRate;
+    }
+
+    /**
+     * Starts a stroke, blending it with any strokes still in progress.
+     * This must be called on the actuator thread.
+     *
+     * @param mouseInput   The mouse input to move for.
+     * @param longInput    Whether the input is long or short.
+     * @param decidedNanos The time the input was decided.
+     */
+    void start(@NotNull MouseInput mouseInput, boolean longInput, long decidedNanos) {
+        long duration = longInput ? mouseInput.getLongDuration() : mouseInput.getShortDuration();
+
+        if (duration <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        strokes.add(new Stroke(mouseInput, duration, now));
+        metrics.onPressed(decidedNanos);
+
+        if (!running) {
+            running = true;
+            nextFrameNanos = now;
+
+            // Starts from the middle of the window if the mouse position is unknown
+            Point position = sink.getPointerLocation();
+            Rectangle bounds = windowBounds.get();
+            emittedX = position != null ? position.x : bounds != null ? (int) bounds.getCenterX() : 0;
+            emittedY = position != null ? position.y : bounds != null ? (int) bounds.getCenterY() : 0;
+            x = emittedX;
+            y = emittedY;
+            run();
+        }
+    }
+
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        Rectangle bounds = windowBounds.get();
+
+        // Stops moving once the window is gone.
+        if (bounds == null) {
+            stop();
+            return;
+        }
+
+        // Continues from wherever something else moved the mouse, keeping the sub-pixel remainder.
+        Point position = sink.getPointerLocation();
+        if (position != null && (position.x != emittedX || position.y != emittedY)) {
+            x += position.x - emittedX;
+            y += position.y - emittedY;
+            emittedX = position.x;
+            emittedY = position.y;
+        }
+
+        for (int i = strokes.size() - 1; i >= 0; i--) {
+            Stroke stroke = strokes.get(i);
+            double progress = Math.min(1, (double) (now - stroke.startedNanos) / stroke.durationNanos);
+            double covered = stroke.easing.apply(progress);
+
+            x += stroke.dx * (covered - stroke.covered);
+            y += stroke.dy * (covered - stroke.covered);
+            stroke.covered = covered;
+
+            if (progress >= 1) {
+                strokes.remove(i);
+                metrics.onReleased(stroke.startedNanos);
+            }
+        }
+
+        // Ensure the mouse stays within the window's boundaries
+        x = Math.max(bounds.x + WINDOW_EDGE_BUFFER, Math.min(x, bounds.x + bounds.width - WINDOW_EDGE_BUFFER));
+        y = Math.max(bounds.y + WINDOW_EDGE_BUFFER, Math.min(y, bounds.y + bounds.height - WINDOW_EDGE_BUFFER));
+
+        int pixelX = (int) Math.round(x);
+        int pixelY = (int) Math.round(y);
+
+        if (pixelX != emittedX || pixelY != emittedY) {
+            sink.mouseMove(pixelX, pixelY, now);
+            emittedX = pixelX;
+            emittedY = pixelY;
+        }
+
+        if (strokes.isEmpty()) {
+            running = false;
+            return;
+        }
+
+        // Moves to the next deadline on the grid, skipping any frames that were missed.
+        nextFrameNanos += framePeriodNanos;
+        if (nextFrameNanos <= now) {
+            nextFrameNanos += ((now - nextFrameNanos) / framePeriodNanos + 1) * framePeriodNanos;
+        }
+
+        try {
+            scheduler.schedule(this, nextFrameNanos - now, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            stop();
+        }
+    }
+
+    /**
+     * Ends every stroke in progress.
+     */
+    private void stop() {
+        for (Stroke stroke : strokes) {
+            metrics.onReleased(stroke.startedNanos);
+        }
+
+        strokes.clear();
+        running = false;
+    }
+
+    /**
+     * A single mouse input's movement.
+     */
+    private static final class Stroke {
+
+        private final double dx;
+        private final double dy;
+        private final long durationNanos;
+        private final long startedNanos;
+        private final MouseInput.Easing easing;
+
+        // Fraction of the distance already moved
+        private double covered;
+
+        Stroke(@NotNull MouseInput mouseInput, long durationMillis, long startedNanos) {
+            double distance = mouseInput.getVelocity() * durationMillis / 1000.0;
+            this.startedNanos = startedNanos;
+            durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            easing = mouseInput.getEasing();
+
+            switch (mouseInput.getDirection()) {
+                case UP:
+                    dx = 0;
+                    dy = -distance;
+                    break;
+                case DOWN:
+                    dx = 0;
+                    dy = distance;
+                    break;
+                case LEFT:
+                    dx = -distance;
+                    dy = 0;
+                    break;
+                case RIGHT:
+                    dx = distance;
+                    dy = 0;
+                    break;
+                default:
+                    dx = 0;
+                    dy = 0;
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.chat;
+
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.input.CommandIndex;
+import net.foulest.chatter.journal.JournalRecordType;
+import net.foulest.chatter.journal.SessionJournal;
+import net.foulest.chatter.logging.RateLimitedLog;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.util.Application;
+import net.foulest.chatter.vote.VoteEngine;
+import net.foulest.chatter.window.FocusTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Turns chat messages into votes for an application's inputs.
+ * <p>
+ * This is the handler registered for {@link IRCMessageEvent}s; it is kept
+ * separate from the Twitch connection so the same path can be driven offline.
+ * Per-message log lines are rate-limited so a raid can't stall the event
+ * thread on console output.
+ * <p>
+ * A message may hold several commands, each with a repeat count, such as
+ * {@code up up right} or {@code w3}. Such a message is submitted as one
+ * ballot, so it only uses one of the user's votes. Messages with more
+ * than {@value #MAX_COMMANDS_PER_MESSAGE} commands in total are ignored.
+ */
+@Slf4j(topic = "Chatter")
+public class ChatInputHandler implements Consumer<IRCMessageEvent> {
+
+    // Maximum number of per-message log lines per second in each category
+    private static final int IGNORED_LINES_PER_SECOND = 5;
+    private static final int QUEUED_LINES_PER_SECOND = 10;
+
+    /**
+     * The most commands a single message may hold, counting repeats.
+     */
+    public static final int MAX_COMMANDS_PER_MESSAGE = 4;
+
+    private final RateLimitedLog ignoredLog = new RateLimitedLog(log, "ignored", IGNORED_LINES_PER_SECOND);
+    private final RateLimitedLog queuedLog = new RateLimitedLog(log, "queued", QUEUED_LINES_PER_SECOND);
+
+    private final Supplier<Application> application;
+    private final FocusTracker focusTracker;
+    private final VoteEngine voteEngine;
+    private final BooleanSupplier broadcaster;
+    private final PipelineMetrics metrics;
+    private final int weight;
+
+    // Journal each vote is recorded in, or null, and the key of the channel the votes are recorded under
+    private SessionJournal journal;
+    private int channelKey;
+
+    /**
+     * Constructs a new chat input handler.
+     *
+     * @param application  The application whose inputs are voted on.
+     * @param focusTracker The tracker that reports whether the application is in focus.
+     * @param voteEngine   The engine that receives the votes.
+     * @param broadcaster  Reports whether the bot is verified as the channel's broadcaster.
+     * @param metrics      The metrics to record each message's outcome in.
+     */
+    public ChatInputHandler(@NotNull Application application, @NotNull FocusTracker focusTracker,
+                            @NotNull VoteEngine voteEngine, @NotNull BooleanSupplier broadcaster,
+                            @NotNull PipelineMetrics metrics) {
+        this(application, focusTracker, voteEngine, broadcaster, metrics, 1);
+    }
+
+    /**
+     * Constructs a new chat input handler whose votes carry a weight.
+     *
+     * @param application  The application whose inputs are voted on.
+     * @param focusTracker The tracker that reports whether the application is in focus.
+     * @param voteEngine   The engine that receives the votes.
+     * @param broadcaster  Reports whether the bot is verified as the channel's broadcaster.
+     * @param metrics      The metrics to record each message's outcome in.
+     * @param weight       The number of votes each message counts as, from 1 to 65535.
+     */
+    public ChatInputHandler(@NotNull Application application, @NotNull FocusTracker focusTracker,
+                            @NotNull VoteEngine voteEngine, @NotNull BooleanSupplier broadcaster,
+                            @NotNull PipelineMetrics metrics, int weight) {
+        this(() -> application, focusTracker, voteEngine, broadcaster, metrics, weight);
+    }
+
+    /**
+     * Constructs a new chat input handler whose application can be swapped while it runs.
+     * <p>
+     * The application is read once per message, so each message is matched
+     * against a single profile even if the profile is reloaded meanwhile.
+     *
+     * @param application  Supplies the application whose inputs are currently voted on.
+     * @param focusTracker The tracker that reports whether the application is in focus.
+     * @param voteEngine   The engine that receives the votes.
+     * @param broadcaster  Reports whether the bot is verified as the channel's broadcaster.
+     * @param metrics      The metrics to record each message's outcome in.
+     * @param weight       The number of votes each message counts as, from 1 to 65535.
+     */
+    public ChatInputHandler(@NotNull Supplier<Application> application, @NotNull FocusTracker focusTracker,
+                            @NotNull VoteEngine voteEngine, @NotNull BooleanSupplier broadcaster,
+                            @NotNull PipelineMetrics metrics, int weight) {
+        if (weight <= 0 || weight > 0xFFFF) {
+            throw new IllegalArgumentException("Vote weight must be between 1 and 65535: " + weight);
+        }
+
+        this.application = application;
+        this.focusTracker = focusTracker;
+        this.voteEngine = voteEngine;
+        this.broadcaster = broadcaster;
+        this.metrics = metrics;
+        this.weight = weight;
+    }
+
+    /**
+     * Records every vote this handler submits in a session journal.
+     * Call this before the handler receives any events.
+     *
+     * @param journal The journal to record votes in, or null to stop recording.
+     * @param channel The name of the channel the handler receives events from.
+     */
+    public void setJournal(@Nullable SessionJournal journal, @NotNull String channel) {
+        this.journal = journal;
+        channelKey = SessionJournal.channelKey(channel);
+    }
+
+    @Override
+    public void accept(@NotNull IRCMessageEvent event) {
+        handle(event);
+    }
+
+    /**
+     * Handles a chat event.
+     *
+     * @param event The chat event to handle.
+     * @return Whether the event was submitted as a vote.
+     */
+    public boolean handle(@NotNull IRCMessageEvent event) {
+        long receivedNanos = System.nanoTime();
+        metrics.onReceived();
+
+        // Ignores messages that aren't sent by chatters.
+        if (!"PRIVMSG".equals(event.getCommandType())) {
+            metrics.onNonPrivmsg();
+            return false;
+        }
+
+        Optional<String> optionalMessage = event.getMessage();
+        if (!optionalMessage.isPresent()) {
+            metrics.onNonPrivmsg();
+            return false;
+        }
+
+        String message = optionalMessage.get();
+
+        // Ignores messages if the user is not the broadcaster.
+        if (!broadcaster.getAsBoolean()) {
+            metrics.onNotBroadcaster();
+            ignoredLog.info("Ignoring message: {} (not the broadcaster)", message);
+            return false;
+        }
+
+        // Ignores messages that don't match any of the application's inputs.
+        CommandIndex commandIndex = application.get().getCommandIndex();
+        int command = commandIndex.lookup(message);
+        int tokens = 1;
+
+        if (command == CommandIndex.NO_MATCH) {
+            tokens = countTokens(commandIndex, message);
+
+            if (tokens == 0) {
+                metrics.onUnmatched();
+                return false;
+            }
+        }
+
+        // Ignores messages if the application's window is not in focus.
+        if (!focusTracker.isFocused()) {
+            metrics.onUnfocused();
+            ignoredLog.info("Ignoring message: {} (application not in focus)", message);
+            return false;
+        }
+
+        boolean submitted;
+        int user = userKey(event.getUserId());
+
+        if (command != CommandIndex.NO_MATCH) {
+            submitted = voteEngine.submit(commandIndex.getOrdinals(), CommandIndex.ordinalOf(command),
+                    CommandIndex.isLongInput(command), receivedNanos, weight, user);
+        } else {
+            submitted = voteEngine.submitBallot(commandIndex, message, tokens, receivedNanos, weight, user);
+        }
+
+        // Ignores messages matched against a profile that was reloaded before the vote landed.
+        if (!submitted) {
+            metrics.onUnmatched();
+            return false;
+        }
+
+        if (journal != null) {
+            recordVotes(commandIndex, message, command, user);
+        }
+
+        queuedLog.info("Adding input to queue: {}", message);
+        metrics.onQueued(receivedNanos);
+        return true;
+    }
+
+    /**
+     * Records a submitted message's votes in the journal, one record per command.
+     * The commands after a ballot's first are marked as continuing it, and
+     * each command records its share of the ballot's weight, as counted.
+     *
+     * @param commandIndex The index the message's commands were looked up in.
+     * @param message      The chat message.
+     * @param command      The message's single command, or {@link CommandIndex#NO_MATCH} if it is a ballot.
+     * @param user         The key of the user who voted.
+     */
+    private void recordVotes(@NotNull CommandIndex commandIndex, @NotNull String message, int command, int user) {
+        if (command != CommandIndex.NO_MATCH) {
+            journal.record(JournalRecordType.VOTE, channelKey, user, weight, CommandIndex.ordinalOf(command),
+                    CommandIndex.isLongInput(command));
+            return;
+        }
+
+        int totalRepeats = commandIndex.countRepeats(message);
+        int repeatsBefore = 0;
+        int position = 0;
+        boolean continuation = false;
+        long token;
+
+        while ((token = commandIndex.nextToken(message, position)) >= 0) {
+            int tokenCommand = CommandIndex.tokenCommand(token);
+            int repeat = CommandIndex.tokenRepeat(token);
+            journal.record(JournalRecordType.VOTE, channelKey, user,
+                    CommandIndex.ballotShare(weight, repeatsBefore, repeat, totalRepeats),
+                    CommandIndex.ordinalOf(tokenCommand), CommandIndex.isLongInput(tokenCommand), continuation);
+            repeatsBefore += repeat;
+            position = CommandIndex.tokenEnd(token);
+            continuation = true;
+        }
+    }
+
+    /**
+     * Counts the command tokens of a compound message.
+     *
+     * @param commandIndex The index to look commands up in.
+     * @param message      The chat message.
+     * @return The number of tokens, or 0 if any token isn't a command or the
+     * message holds too many commands.
+     */
+    private static int countTokens(@NotNull CommandIndex commandIndex, @NotNull String message) {
+        int tokens = 0;
+        int commands = 0;
+        int position = 0;
+
+        while (true) {
+            long token = commandIndex.nextToken(message, position);
+
+            if (token == CommandIndex.NO_TOKEN) {
+                return tokens;
+            }
+
+            if (token == CommandIndex.NOT_A_COMMAND) {
+                return 0;
+            }
+
+            commands += CommandIndex.tokenRepeat(token);
+
+            if (commands > MAX_COMMANDS_PER_MESSAGE) {
+                return 0;
+            }
+
+            tokens++;
+            position = CommandIndex.tokenEnd(token);
+        }
+    }
+
+    /**
+     * Gets the key a user's votes are counted under.
+     * <p>
+     * Twitch user ids are numbers that fit in 32 bits, so they are used
+     * as-is and never collide. Anything else is hashed, except id 0,
+     * which is treated as unknown.
+     *
+     * @param userId The user's Twitch id, or null if unknown.
+     * @return The user's key, or 0 if the user is unknown.
+     */
+    private static int userKey(@Nullable String userId) {
+        if (userId == null || userId.isEmpty()) {
+            return 0;
+        }
+
+        long id = 0;
+
+        for (int i = 0; i < userId.length() && id <= 0xFFFFFFFFL; i++) {
+            char c = userId.charAt(i);
+
+            if (c < '0' || c > '9') {
+                id = -1;
+                break;
+            }
+
+            id = id * 10 + (c - '0');
+        }
+
+        // Twitch never hands out id 0, so it stands for an unknown user too.
+        if (id == 0) {
+            return 0;
+        }
+
+        // Hashes ids that aren't numbers or don't fit.
+        if (id < 0 || id > 0xFFFFFFFFL) {
+            int hash = userId.hashCode();
+            return hash == 0 ? 1 : hash;
+        }
+        return (int) id;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.concurrent;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Creates the threads Chatter's services and pipelines run on.
+ * <p>
+ * This is the Java 8 version, which runs each scheduler on one daemon
+ * platform thread, so a pipeline costs a small fixed number of threads
+ * however many inputs it has in flight. The jar is multi-release: on
+ * Java 21 and newer a replacement of this class runs the same work on
+ * virtual threads instead, whose stacks grow from a few hundred bytes
+ * rather than reserving a megabyte each. Callers don't need to know which
+ * version was picked.
+ */
+public final class ChatterThreads {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ChatterThreads() {
+    }
+
+    /**
+     * Creates a scheduler that runs its tasks one at a time, in order, on a single thread.
+     *
+     * @param name The name of the scheduler's thread.
+     * @return The scheduler.
+     */
+    public static @NotNull ScheduledThreadPoolExecutor newScheduler(@NotNull String name) {
+        return new ScheduledThreadPoolExecutor(1, runnable -> newThread(name, runnable));
+    }
+
+    /**
+     * Starts a thread for a task that spends most of its time blocked, such as waiting for file changes.
+     *
+     * @param name The name of the thread.
+     * @param task The task to run.
+     * @return The started thread.
+     */
+    public static @NotNull Thread start(@NotNull String name, @NotNull Runnable task) {
+        Thread thread = newThread(name, task);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Describes the threads this version creates, for the startup log.
+     *
+     * @return The description.
+     */
+    public static @NotNull String describe() {
+        return "platform threads (Java " + System.getProperty("java.specification.version") + ")";
+    }
+
+    /**
+     * Creates a daemon platform thread.
+     *
+     * @param name The name of the thread.
+     * @param task The task to run.
+     * @return The unstarted thread.
+     */
+    private static @NotNull Thread newThread(@NotNull String name, @NotNull Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Startup settings read from command-line arguments, environment variables and a config file.
+ * <p>
+ * Each setting is looked up in that order, so an argument such as
+ * {@code --token=oauth:...} beats the {@code CHATTER_TOKEN} environment
+ * variable, which beats a {@code token=...} line in the config file. The
+ * config file is a properties file named by {@code --config} or
+ * {@code CHATTER_CONFIG}, or {@code chatter.properties} in the working
+ * directory if it exists. Settings that are missing everywhere are
+ * prompted for, so a fully configured run never reads from the console.
+ */
+public final class ChatterConfig {
+
+    /**
+     * The input method: {@code random}, {@code twitch} or {@code replay}, or its menu number.
+     */
+    public static final String MODE = "mode";
+
+    /**
+     * The application's menu number or name, or {@code auto} to follow the application in focus.
+     */
+    public static final String APPLICATION = "application";
+
+    /**
+     * The Twitch OAuth token.
+     */
+    public static final String TOKEN = "token";
+
+    /**
+     * The channel groups to monitor, such as {@code alice, bob:2; carol=2}.
+     */
+    public static final String CHANNELS = "channels";
+
+    /**
+     * Whether the bot is already known to be the broadcaster, so chat is handled before the role is confirmed.
+     */
+    public static final String ASSUME_BROADCASTER = "assume-broadcaster";
+
+    /**
+     * What to do when a key is pressed while the opposite key is held, such as {@code last-wins}.
+     */
+    public static final String AXIS_POLICY = "axis-policy";
+
+    /**
+     * The chat server to connect to instead of Twitch's, such as a local stand-in for testing.
+     */
+    public static final String CHAT_URL = "chat-url";
+
+    /**
+     * The seed random mode picks its inputs from, to repeat an earlier run.
+     */
+    public static final String RANDOM_SEED = "random-seed";
+
+    /**
+     * How many random inputs are picked per second.
+     */
+    public static final String RANDOM_RATE = "random-rate";
+
+    /**
+     * Whether random inputs go through vote windows instead of straight to the actuator.
+     */
+    public static final String RANDOM_VOTE = "random-vote";
+
+    /**
+     * The path of the session journal that votes, decisions and executed inputs are appended to.
+     */
+    public static final String JOURNAL = "journal";
+
+    /**
+     * The path of the chat log or session journal to replay.
+     */
+    public static final String REPLAY_LOG = "replay-log";
+
+    /**
+     * The replay speed, or {@code max}.
+     */
+    public static final String REPLAY_SPEED = "replay-speed";
+
+    /**
+     * The channel to replay from a session journal that holds more than one.
+     */
+    public static final String REPLAY_CHANNEL = "replay-channel";
+
+    /**
+     * The directory of application profiles.
+     */
+    public static final String PROFILES = "profiles";
+
+    /**
+     * The path of the config file.
+     */
+    public static final String CONFIG = "config";
+
+    // Prefix of the environment variable for each setting
+    private static final String ENV_PREFIX = "CHATTER_";
+
+    // Config file read when no other is named
+    private static final String DEFAULT_CONFIG_FILE = "chatter.properties";
+
+    private static final Set<String> KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            MODE, APPLICATION, TOKEN, CHANNELS, ASSUME_BROADCASTER, AXIS_POLICY, CHAT_URL, RANDOM_SEED, RANDOM_RATE,
+            RANDOM_VOTE, JOURNAL, REPLAY_LOG, REPLAY_SPEED, REPLAY_CHANNEL, PROFILES, CONFIG)));
+
+    private final Map<String, String> arguments;
+    private final Map<String, String> environment;
+    private final Properties file;
+
+    /**
+     * Constructs a new config.
+     *
+     * @param arguments   The settings given as arguments.
+     * @param environment The environment variables.
+     * @param file        The settings read from the config file.
+     */
+    private ChatterConfig(@NotNull Map<String, String> arguments, @NotNull Map<String, String> environment,
+                          @NotNull Properties file) {
+        this.arguments = arguments;
+        this.environment = environment;
+        this.file = file;
+    }
+
+    /**
+     * Loads the config.
+     *
+     * @param args        The command-line arguments.
+     * @param environment The environment variables.
+     * @return The config.
+     * @throws IOException              If the config file can't be read.
+     * @throws IllegalArgumentException If an argument or config file setting is unknown.
+     */
+    public static @NotNull ChatterConfig load(@NotNull String[] args, @NotNull Map<String, String> environment)
+            throws IOException {
+        Map<String, String> arguments = parseArguments(args);
+        Properties file = new Properties();
+        ChatterConfig config = new ChatterConfig(arguments, environment, file);
+        String configPath = config.get(CONFIG);
+        Path path = Paths.get(configPath == null ? DEFAULT_CONFIG_FILE : configPath);
+
+        // Only a config file that was asked for has to exist.
+        if (configPath != null || Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                file.load(reader);
+            }
+
+            for (String key : file.stringPropertyNames()) {
+                if (!KEYS.contains(key)) {
+                    throw new IllegalArgumentException("Unknown setting '" + key + "' in " + path);
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Gets a setting.
+     *
+     * @param key The setting's name.
+     * @return The setting's value, or null if it isn't set anywhere.
+     */
+    public @Nullable String get(@NotNull String key) {
+        String value = arguments.get(key);
+
+        if (value == null) {
+            value = environment.get(ENV_PREFIX + key.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Gets a true or false setting.
+     *
+     * @param key The setting's name.
+     * @return Whether the setting is {@code true}; false if it isn't set anywhere.
+     */
+    public boolean getBoolean(@NotNull String key) {
+        return Boolean.parseBoolean(get(key));
+    }
+
+    /**
+     * Parses arguments such as {@code --mode twitch}, {@code --mode=twitch} or {@code --assume-broadcaster}.
+     *
+     * @param args The command-line arguments.
+     * @return The settings keyed by name.
+     */
+    private static @NotNull Map<String, String> parseArguments(@NotNull String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'. Settings start with '--'.");
+            }
+
+            String key = arg.substring(2);
+            String value;
+            int equals = key.indexOf('=');
+
+            if (equals != -1) {
+                value = key.substring(equals + 1);
+                key = key.substring(0, equals);
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                value = args[++i];
+            } else {
+                // A setting without a value is a switch.
+                value = "true";
+            }
+
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown setting '--" + key + "'.");
+            }
+
+            arguments.put(key, value);
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+
+/**
+ * Immutable lookup table from chat commands to application inputs.
+ * <p>
+ * Input names are case-folded into an open-addressing hash table once,
+ * so a lookup is a single pass over the message with no allocation.
+ * Messages are rejected by length and first character before hashing,
+ * which filters out most chat lines that aren't commands at all.
+ * <p>
+ * Compound messages such as {@code up up right} or {@code w3} are read
+ * one token at a time with {@link #nextToken(CharSequence, int)}, which
+ * works on the message in place and returns each token packed in a long.
+ */
+public final class CommandIndex {
+
+    /**
+     * Returned by a lookup when the message is not a command.
+     */
+    public static final int NO_MATCH = -1;
+
+    /**
+     * Returned by {@link #nextToken(CharSequence, int)} when the message has no more tokens.
+     */
+    public static final long NO_TOKEN = -1L;
+
+    /**
+     * Returned by {@link #nextToken(CharSequence, int)} when a token is not a command.
+     */
+    public static final long NOT_A_COMMAND = -2L;
+
+    /**
+     * The largest repeat count a token may end with.
+     */
+    public static final int MAX_REPEAT = 9;
+
+    private final InputOrdinals ordinals;
+    private final char[][] keys;
+    private final int[] values;
+    private final int mask;
+    private final int minLength;
+    private final int maxLength;
+    private final BitSet firstChars = new BitSet();
+
+    /**
+     * Constructs the command index for an ordinal table.
+     *
+     * @param ordinals The ordinals of the application's inputs.
+     */
+    public CommandIndex(@NotNull InputOrdinals ordinals) {
+        this.ordinals = ordinals;
+
+        int capacity = Integer.highestOneBit(Math.max(ordinals.size(), 1) * 4 - 1) << 1;
+        keys = new char[capacity][];
+        values = new int[capacity];
+        mask = capacity - 1;
+
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+
+        for (int ordinal = 0; ordinal < ordinals.size(); ordinal++) {
+            String name = ordinals.getInput(ordinal).getInputName();
+            char[] key = new char[name.length()];
+
+            for (int i = 0; i < key.length; i++) {
+                key[i] = fold(name.charAt(i));
+            }
+
+            if (key.length == 0) {
+                continue;
+            }
+
+            int slot = hash(key, 0, key.length) & mask;
+
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+            values[slot] = ordinal;
+            firstChars.set(key[0]);
+            min = Math.min(min, key.length);
+            max = Math.max(max, key.length);
+        }
+
+        minLength = min;
+        maxLength = max;
+    }
+
+    /**
+     * Looks up a chat message, ignoring surrounding whitespace and case.
+     *
+     * @param message The chat message.
+     * @return The matched command encoded as {@code ordinal << 1 | long}, or {@link #NO_MATCH}.
+     */
+    public int lookup(@NotNull CharSequence message) {
+        return lookup(message, 0, message.length());
+    }
+
+    /**
+     * Looks up a region of a chat message, ignoring surrounding whitespace and case.
+     * <p>
+     * Commands typed without any lowercase letters are long inputs.
+     *
+     * @param message The chat message.
+     * @param start   The start of the region, inclusive.
+     * @param end     The end of the region, exclusive.
+     * @return The matched command encoded as {@code ordinal << 1 | long}, or {@link #NO_MATCH}.
+     */
+    public int lookup(@NotNull CharSequence message, int start, int end) {
+        // Trims whitespace the same way String#trim does.
+        while (start < end && message.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && message.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int length = end - start;
+
+        if (length < minLength || length > maxLength
+                || !firstChars.get(fold(message.charAt(start)))) {
+            return NO_MATCH;
+        }
+
+        int slot = hash(message, start, end) & mask;
+
+        for (char[] key = keys[slot]; key != null; key = keys[slot = (slot + 1) & mask]) {
+            if (key.length == length && matches(key, message, start)) {
+                return (values[slot] << 1) | (isLongInput(message, start, end) ? 1 : 0);
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * Reads the next whitespace-separated token of a message as a command.
+     * <p>
+     * A token is either a command, or a command followed by a repeat count
+     * from 1 to {@value #MAX_REPEAT}, such as {@code w3}. A token that is a
+     * command as a whole is never split, so inputs named with digits keep
+     * working.
+     *
+     * @param message The chat message.
+     * @param from    The position to start reading from.
+     * @return The token packed as {@code end << 32 | repeat << 16 | command}, {@link #NO_TOKEN}
+     * if only whitespace is left, or {@link #NOT_A_COMMAND} if the token isn't a command.
+     */
+    public long nextToken(@NotNull CharSequence message, int from) {
+        int length = message.length();
+        int start = from;
+
+        while (start < length && message.charAt(start) <= ' ') {
+            start++;
+        }
+
+        if (start == length) {
+            return NO_TOKEN;
+        }
+
+        int end = start;
+        while (end < length && message.charAt(end) > ' ') {
+            end++;
+        }
+
+        int command = lookup(message, start, end);
+        int repeat = 1;
+
+        // Splits off a repeat count, trying the shortest count first.
+        for (int split = end - 1; command == NO_MATCH && split > start; split--) {
+            char c = message.charAt(split);
+
+            if (c < '0' || c > '9') {
+                break;
+            }
+
+            int count = parseCount(message, split, end);
+
+            if (count >= 1 && count <= MAX_REPEAT) {
+                command = lookup(message, start, split);
+                repeat = count;
+            }
+        }
+
+        if (command == NO_MATCH) {
+            return NOT_A_COMMAND;
+        }
+        return ((long) end << 32) | ((long) repeat << 16) | command;
+    }
+
+    /**
+     * Gets the command of a token.
+     *
+     * @param token The token returned by {@link #nextToken(CharSequence, int)}.
+     * @return The command encoded as {@code ordinal << 1 | long}.
+     */
+    public static int tokenCommand(long token) {
+        return (int) (token & 0xFFFF);
+    }
+
+    /**
+     * Gets the repeat count of a token.
+     *
+     * @param token The token returned by {@link #nextToken(CharSequence, int)}.
+     * @return The number of times the command was repeated.
+     */
+    public static int tokenRepeat(long token) {
+        return (int) ((token >>> 16) & 0xFFFF);
+    }
+
+    /**
+     * Gets the position after a token, where reading the next token starts.
+     *
+     * @param token The token returned by {@link #nextToken(CharSequence, int)}.
+     * @return The end of the token, exclusive.
+     */
+    public static int tokenEnd(long token) {
+        return (int) (token >>> 32);
+    }
+
+    /**
+     * Counts the commands in a message's tokens, counting each repeat.
+     *
+     * @param message The chat message, already checked to hold only commands.
+     * @return The number of commands, such as 4 for {@code up up3}.
+     */
+    public int countRepeats(@NotNull CharSequence message) {
+        int repeats = 0;
+        int position = 0;
+        long token;
+
+        while ((token = nextToken(message, position)) >= 0) {
+            repeats += tokenRepeat(token);
+            position = tokenEnd(token);
+        }
+        return repeats;
+    }
+
+    /**
+     * Gets a token's share of the weight of the ballot it is part of.
+     * <p>
+     * A ballot counts as much as a single vote, so its weight is split
+     * across its tokens by their repeat counts. The shares are rounded so
+     * they add up to exactly the ballot's weight, with earlier tokens
+     * getting the rounding; a token may get a share of 0.
+     *
+     * @param weight        The number of votes the whole ballot counts as.
+     * @param repeatsBefore The repeat counts of the ballot's earlier tokens, added up.
+     * @param repeat        The token's repeat count.
+     * @param totalRepeats  The repeat counts of all the ballot's tokens, added up.
+     * @return The number of votes the token counts as.
+     */
+    public static int ballotShare(int weight, int repeatsBefore, int repeat, int totalRepeats) {
+        long upTo = ((long) weight * (repeatsBefore + repeat) + totalRepeats - 1) / totalRepeats;
+        long before = ((long) weight * repeatsBefore + totalRepeats - 1) / totalRepeats;
+        return (int) (upTo - before);
+    }
+
+    /**
+     * Gets the input of a matched command.
+     *
+     * @param command The command returned by a lookup.
+     * @return The input of the command.
+     */
+    public Input getInput(int command) {
+        return ordinals.getInput(command >> 1);
+    }
+
+    /**
+     * Gets the ordinal table this index was built from.
+     *
+     * @return The ordinal table.
+     */
+    public InputOrdinals getOrdinals() {
+        return ordinals;
+    }
+
+    /**
+     * Gets the ordinal of a matched command.
+     *
+     * @param command The command returned by a lookup.
+     * @return The ordinal of the command's input.
+     */
+    public static int ordinalOf(int command) {
+        return command >> 1;
+    }
+
+    /**
+     * Checks whether a matched command was typed as a long input.
+     *
+     * @param command The command returned by a lookup.
+     * @return Whether the command is a long input.
+     */
+    public static boolean isLongInput(int command) {
+        return (command & 1) == 1;
+    }
+
+    private static boolean matches(@NotNull char[] key, @NotNull CharSequence message, int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != fold(message.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseCount(@NotNull CharSequence message, int start, int end) {
+        int count = 0;
+
+        for (int i = start; i < end && count <= MAX_REPEAT; i++) {
+            count = count * 10 + (message.charAt(i) - '0');
+        }
+        return count;
+    }
+
+    private static boolean isLongInput(@NotNull CharSequence message, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isLowerCase(message.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(@NotNull char[] key, int start, int end) {
+        int hash = 0;
+
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + key[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(@NotNull CharSequence message, int start, int end) {
+        int hash = 0;
+
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(message.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Folds a character so that case-insensitively equal characters compare equal.
+     *
+     * @param c The character to fold.
+     * @return The folded character.
+     */
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.input;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Assigns each distinct input name of an application a dense ordinal.
+ * <p>
+ * Inputs are grouped by case-insensitive name, so duplicate definitions
+ * share an ordinal and the first definition is the one that executes.
+ */
+public final class InputOrdinals {
+
+    private final int[] ordinalByIndex;
+    private final List<Input> inputByOrdinal;
+
+    /**
+     * Constructs the ordinal table for a list of inputs.
+     *
+     * @param inputs The inputs of the application.
+     */
+    public InputOrdinals(@NotNull List<? extends Input> inputs) {
+        Map<String, Integer> ordinalByName = new HashMap<>();
+        List<Input> distinct = new ArrayList<>();
+        ordinalByIndex = new int[inputs.size()];
+
+        for (int i = 0; i < inputs.size(); i++) {
+            Input input = inputs.get(i);
+            String name = input.getInputName().toLowerCase(Locale.ROOT);
+            Integer ordinal = ordinalByName.get(name);
+
+            if (ordinal == null) {
+                ordinal = distinct.size();
+                ordinalByName.put(name, ordinal);
+                distinct.add(input);
+            }
+
+            ordinalByIndex[i] = ordinal;
+        }
+
+        inputByOrdinal = Collections.unmodifiableList(distinct);
+    }
+
+    /**
+     * Gets the ordinal of the input at the given index of the input list.
+     *
+     * @param index The index in the application's input list.
+     * @return The dense ordinal of the input.
+     */
+    public int ordinalOf(int index) {
+        return ordinalByIndex[index];
+    }
+
+    /**
+     * Gets the input assigned to an ordinal.
+     *
+     * @param ordinal The ordinal to look up.
+     * @return The input assigned to the ordinal.
+     */
+    public Input getInput(int ordinal) {
+        return inputByOrdinal.get(ordinal);
+    }
+
+    /**
+     * Gets the number of distinct ordinals.
+     *
+     * @return The number of distinct ordinals.
+     */
+    public int size() {
+        return inputByOrdinal.size();
+    }
+}
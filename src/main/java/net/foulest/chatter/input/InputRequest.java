@@ -27,20 +27,39 @@ import lombok.ToString;
 @ToString
 public class InputRequest {
 
-    private final String message;
+    /**
+     * The ordinal stored when the input's ordinal isn't known.
+     */
+    public static final int UNKNOWN_ORDINAL = -1;
+
     private final Input input;
+    private final int ordinal;
+    private final boolean longInput;
     private final long timestamp;
 
     /**
      * Constructs a new input request.
      *
-     * @param message The message of the input request.
-     * @param input   The input of the input request.
+     * @param input     The input of the input request.
+     * @param longInput Whether the input should use its long duration.
+     * @param timestamp The timestamp of the input request.
+     */
+    public InputRequest(Input input, boolean longInput, long timestamp) {
+        this(input, UNKNOWN_ORDINAL, longInput, timestamp);
+    }
+
+    /**
+     * Constructs a new input request for an input decided from an ordinal table.
+     *
+     * @param input     The input of the input request.
+     * @param ordinal   The input's ordinal in the table it was decided from.
+     * @param longInput Whether the input should use its long duration.
      * @param timestamp The timestamp of the input request.
      */
-    public InputRequest(String message, Input input, long timestamp) {
-        this.message = message;
+    public InputRequest(Input input, int ordinal, boolean longInput, long timestamp) {
         this.input = input;
+        this.ordinal = ordinal;
+        this.longInput = longInput;
         this.timestamp = timestamp;
     }
 }
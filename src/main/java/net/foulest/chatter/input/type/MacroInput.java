@@ -0,0 +1,125 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.input.type;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import net.foulest.chatter.input.Input;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a macro input that runs several inputs as one command.
+ * <p>
+ * A macro is a list of steps. The inputs in a step start together, like a
+ * chord, and each step starts once the previous one has finished and the
+ * gap has passed. The steps are compiled into a {@link MacroTimeline} once,
+ * for both short and long votes, so running a macro only walks an array.
+ */
+@Getter
+@ToString
+public class MacroInput implements Input {
+
+    private final String inputName;
+    private final List<List<Input>> steps;
+    private final long gapMillis;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final MacroTimeline shortTimeline;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final MacroTimeline longTimeline;
+
+    /**
+     * Constructs a new macro input.
+     *
+     * @param inputName The name of the input.
+     * @param steps The steps of the macro, each a list of key and mouse inputs started together.
+     * @param gapMillis The pause between steps in milliseconds.
+     */
+    public MacroInput(String inputName, @NotNull List<List<Input>> steps, long gapMillis) {
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("A macro needs at least one step: " + inputName);
+        }
+
+        List<List<Input>> copy = new ArrayList<>();
+        for (List<Input> step : steps) {
+            copy.add(Collections.unmodifiableList(new ArrayList<>(step)));
+        }
+
+        this.inputName = inputName;
+        this.steps = Collections.unmodifiableList(copy);
+        this.gapMillis = gapMillis;
+        shortTimeline = new MacroTimeline(this.steps, gapMillis, false);
+        longTimeline = new MacroTimeline(this.steps, gapMillis, true);
+    }
+
+    /**
+     * Creates a macro that holds several inputs together.
+     *
+     * @param inputName The name of the input.
+     * @param inputs The inputs to hold together.
+     * @return The macro input.
+     */
+    public static @NotNull MacroInput chord(String inputName, Input... inputs) {
+        return new MacroInput(inputName, Collections.singletonList(Arrays.asList(inputs)), 0);
+    }
+
+    /**
+     * Creates a macro that runs several inputs one after another.
+     *
+     * @param inputName The name of the input.
+     * @param gapMillis The pause between inputs in milliseconds.
+     * @param inputs The inputs to run in order.
+     * @return The macro input.
+     */
+    public static @NotNull MacroInput sequence(String inputName, long gapMillis, Input... inputs) {
+        List<List<Input>> steps = new ArrayList<>();
+        for (Input input : inputs) {
+            steps.add(Collections.singletonList(input));
+        }
+        return new MacroInput(inputName, steps, gapMillis);
+    }
+
+    /**
+     * Gets the compiled timeline for a vote.
+     *
+     * @param longInput Whether the vote is for a long input.
+     * @return The macro's timeline.
+     */
+    public @NotNull MacroTimeline getTimeline(boolean longInput) {
+        return longInput ? longTimeline : shortTimeline;
+    }
+
+    @Override
+    public long getShortDuration() {
+        return shortTimeline.getDuration();
+    }
+
+    @Override
+    public long getLongDuration() {
+        return longTimeline.getDuration();
+    }
+}
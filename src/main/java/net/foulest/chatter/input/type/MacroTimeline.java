@@ -0,0 +1,163 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.input.type;
+
+import net.foulest.chatter.input.Input;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A macro compiled into a flat, time-ordered list of events.
+ * <p>
+ * Each event is an offset from the start of the macro, a type, and the
+ * input it applies to. Events at the same offset are ordered releases
+ * first, so a key released and pressed again at the same moment is
+ * pressed twice instead of being held.
+ */
+public final class MacroTimeline {
+
+    /**
+     * Represents the type of event in a timeline.
+     */
+    public enum EventType {
+        /**
+         * A key or mouse button is released.
+         */
+        RELEASE,
+
+        /**
+         * A key or mouse button is pressed.
+         */
+        PRESS,
+
+        /**
+         * The mouse starts moving.
+         */
+        MOVE
+    }
+
+    private final long[] offsets;
+    private final EventType[] types;
+    private final Input[] inputs;
+    private final long duration;
+
+    /**
+     * Compiles a macro's steps into a timeline.
+     *
+     * @param steps     The macro's steps, each a list of inputs started together.
+     * @param gapMillis The pause between the end of one step and the start of the next, in milliseconds.
+     * @param longInput Whether to use the inputs' long durations.
+     */
+    MacroTimeline(@NotNull List<List<Input>> steps, long gapMillis, boolean longInput) {
+        List<long[]> events = new ArrayList<>();
+        List<Input> eventInputs = new ArrayList<>();
+        long offset = 0;
+        long end = 0;
+
+        for (List<Input> step : steps) {
+            long stepLength = 0;
+
+            for (Input input : step) {
+                long length = longInput ? input.getLongDuration() : input.getShortDuration();
+                stepLength = Math.max(stepLength, length);
+
+                if (input instanceof KeyInput) {
+                    events.add(new long[]{offset, EventType.PRESS.ordinal(), eventInputs.size()});
+                    events.add(new long[]{offset + length, EventType.RELEASE.ordinal(), eventInputs.size()});
+                } else if (input instanceof MouseInput) {
+                    events.add(new long[]{offset, EventType.MOVE.ordinal(), eventInputs.size()});
+                } else {
+                    throw new IllegalArgumentException("Macros can only contain key and mouse inputs: "
+                            + input.getInputName());
+                }
+
+                eventInputs.add(input);
+            }
+
+            end = offset + stepLength;
+            offset = end + gapMillis;
+        }
+
+        // Orders events by time, then releases before presses before moves.
+        events.sort(Comparator.<long[]>comparingLong(event -> event[0]).thenComparingLong(event -> event[1]));
+
+        EventType[] eventTypes = EventType.values();
+        offsets = new long[events.size()];
+        types = new EventType[events.size()];
+        inputs = new Input[events.size()];
+        duration = end;
+
+        for (int i = 0; i < events.size(); i++) {
+            long[] event = events.get(i);
+            offsets[i] = event[0];
+            types[i] = eventTypes[(int) event[1]];
+            inputs[i] = eventInputs.get((int) event[2]);
+        }
+    }
+
+    /**
+     * Gets the number of events in the timeline.
+     *
+     * @return The number of events.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets when an event happens.
+     *
+     * @param index The index of the event.
+     * @return The event's offset from the start of the macro in milliseconds.
+     */
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Gets the type of an event.
+     *
+     * @param index The index of the event.
+     * @return The event's type.
+     */
+    public @NotNull EventType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Gets the input an event applies to.
+     *
+     * @param index The index of the event.
+     * @return A {@link KeyInput} for presses and releases, or a {@link MouseInput} for moves.
+     */
+    public @NotNull Input getInput(int index) {
+        return inputs[index];
+    }
+
+    /**
+     * Gets how long the macro takes from its first press to its last release.
+     *
+     * @return The macro's duration in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+}
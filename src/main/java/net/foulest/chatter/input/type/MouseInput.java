@@ -17,6 +17,7 @@
  */
 package net.foulest.chatter.input.type;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -24,16 +25,33 @@ import net.foulest.chatter.input.Input;
 
 /**
  * Represents a mouse input.
+ * <p>
+ * The mouse moves at the input's velocity for the input's duration, so
+ * long inputs move further. The easing curve shapes how the movement
+ * speeds up and slows down without changing the distance covered.
  */
 @Getter
 @Setter
 @ToString
 public class MouseInput implements Input {
 
+    /**
+     * The default velocity in pixels per second.
+     */
+    public static final double DEFAULT_VELOCITY = 400;
+
+    /**
+     * The default easing curve.
+     */
+    public static final Easing DEFAULT_EASING = Easing.EASE_IN_OUT;
+
     private String inputName;
     private Direction direction;
     private long shortDuration;
     private long longDuration;
+    @Setter(AccessLevel.NONE)
+    private double velocity;
+    private Easing easing;
 
     /**
      * Represents the direction of the mouse input.
@@ -60,6 +78,43 @@ public class MouseInput implements Input {
         DOWN
     }
 
+    /**
+     * Represents how a mouse movement progresses over its duration.
+     */
+    public enum Easing {
+        /**
+         * Moves at a constant speed.
+         */
+        LINEAR,
+
+        /**
+         * Speeds up at the start and slows down at the end.
+         */
+        EASE_IN_OUT,
+
+        /**
+         * Starts at full speed and slows down at the end.
+         */
+        EASE_OUT;
+
+        /**
+         * Gets how far along a movement is.
+         *
+         * @param progress The elapsed fraction of the movement's duration, from 0 to 1.
+         * @return The fraction of the movement's distance covered, from 0 to 1.
+         */
+        public double apply(double progress) {
+            switch (this) {
+                case EASE_IN_OUT:
+                    return progress * progress * (3 - 2 * progress);
+                case EASE_OUT:
+                    return 1 - (1 - progress) * (1 - progress);
+                default:
+                    return progress;
+            }
+        }
+    }
+
     /**
      * Constructs a new mouse input.
      *
@@ -69,9 +124,30 @@ public class MouseInput implements Input {
      * @param longDuration The long duration of the input.
      */
     public MouseInput(String inputName, Direction direction, long shortDuration, long longDuration) {
+        this(inputName, direction, shortDuration, longDuration, DEFAULT_VELOCITY, DEFAULT_EASING);
+    }
+
+    /**
+     * Constructs a new mouse input with its own velocity and easing curve.
+     *
+     * @param inputName The name of the input.
+     * @param direction The direction of the input.
+     * @param shortDuration The short duration of the input.
+     * @param longDuration The long duration of the input.
+     * @param velocity The velocity of the input in pixels per second.
+     * @param easing The easing curve of the input.
+     */
+    public MouseInput(String inputName, Direction direction, long shortDuration, long longDuration,
+                      double velocity, Easing easing) {
+        if (!(velocity > 0) || Double.isInfinite(velocity)) {
+            throw new IllegalArgumentException("Mouse velocity must be a positive, finite number: " + velocity);
+        }
+
         this.inputName = inputName;
         this.direction = direction;
         this.shortDuration = shortDuration;
         this.longDuration = longDuration;
+        this.velocity = velocity;
+        this.easing = easing;
     }
 }
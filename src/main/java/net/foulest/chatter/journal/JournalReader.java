@@ -0,0 +1,146 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.journal;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the records of a session journal in the order they were written.
+ * <p>
+ * Records are read in large blocks, and a torn record at the end of a
+ * journal that is still being written, or that was cut short by a crash,
+ * is treated as the end of the journal.
+ */
+public class JournalReader implements Closeable {
+
+    // Records read from the file at a time
+    private static final int BLOCK_RECORDS = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_RECORDS * SessionJournal.RECORD_SIZE);
+
+    /**
+     * The number of records with an unknown type.
+     */
+    @Getter
+    private long malformedRecords;
+
+    /**
+     * Opens a journal for reading.
+     *
+     * @param path The path of the journal file.
+     * @throws IOException If the file can't be opened or isn't a journal.
+     */
+    public JournalReader(@NotNull Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            SessionJournal.readHeader(channel, path);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+
+        channel.position(SessionJournal.HEADER_SIZE);
+        buffer.flip();
+    }
+
+    /**
+     * Checks whether a file starts like a session journal.
+     *
+     * @param path The path of the file.
+     * @return Whether the file is a session journal.
+     * @throws IOException If the file can't be read.
+     */
+    public static boolean isJournal(@NotNull Path path) throws IOException {
+        if (Files.size(path) < SessionJournal.HEADER_SIZE) {
+            return false;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            SessionJournal.readHeader(file, path);
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the next record, skipping records with an unknown type.
+     *
+     * @return The next record, or null at the end of the journal.
+     * @throws IOException If the file can't be read.
+     */
+    public @Nullable JournalRecord next() throws IOException {
+        while (true) {
+            if (buffer.remaining() < SessionJournal.RECORD_SIZE && !fill()) {
+                return null;
+            }
+
+            long timestamp = buffer.getLong();
+            int channelKey = buffer.getInt();
+            int user = buffer.getInt();
+            int votes = buffer.getInt();
+            int ordinal = buffer.getShort() & 0xFFFF;
+            JournalRecordType type = JournalRecordType.fromCode(buffer.get());
+            int flags = buffer.get();
+            boolean longInput = (flags & SessionJournal.LONG_INPUT_FLAG) != 0;
+            boolean continuation = (flags & SessionJournal.CONTINUATION_FLAG) != 0;
+
+            if (type == null) {
+                malformedRecords++;
+                continue;
+            }
+            return new JournalRecord(timestamp, type, channelKey, user, votes, ordinal, longInput, continuation);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the next block of records, keeping any partly read record.
+     *
+     * @return Whether a whole record is available.
+     * @throws IOException If the file can't be read.
+     */
+    private boolean fill() throws IOException {
+        buffer.compact();
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+
+        buffer.flip();
+        return buffer.remaining() >= SessionJournal.RECORD_SIZE;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.journal;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A record read back from a session journal.
+ */
+@Getter
+@ToString
+public class JournalRecord {
+
+    /**
+     * The ordinal stored when the input couldn't be matched to an ordinal.
+     */
+    public static final int UNKNOWN_ORDINAL = 0xFFFF;
+
+    private final long timestamp;
+    private final JournalRecordType type;
+    private final int channel;
+    private final int user;
+    private final int votes;
+    private final int ordinal;
+    private final boolean longInput;
+    private final boolean continuation;
+
+    /**
+     * Constructs a new journal record.
+     *
+     * @param timestamp    The time the record was written, in epoch milliseconds.
+     * @param type         What the record describes.
+     * @param channel      The key of the channel, from {@link SessionJournal#channelKey(String)}.
+     * @param user         The key of the user who voted, or 0 if none or unknown.
+     * @param votes        The number of votes a vote counts as, or 0 for other records.
+     * @param ordinal      The ordinal of the input, or {@link #UNKNOWN_ORDINAL}.
+     * @param longInput    Whether the input is long.
+     * @param continuation Whether the vote continues the ballot of the user's vote before it.
+     */
+    public JournalRecord(long timestamp, JournalRecordType type, int channel, int user, int votes, int ordinal,
+                         boolean longInput, boolean continuation) {
+        this.timestamp = timestamp;
+        this.type = type;
+        this.channel = channel;
+        this.user = user;
+        this.votes = votes;
+        this.ordinal = ordinal;
+        this.longInput = longInput;
+        this.continuation = continuation;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.journal;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents what a journal record describes.
+ * <p>
+ * Each type is stored as a fixed code, so reordering the constants never
+ * changes how existing journals are read.
+ */
+public enum JournalRecordType {
+    /**
+     * A chatter voted for an input.
+     */
+    VOTE(1),
+
+    /**
+     * A vote window decided on an input.
+     */
+    DECISION(2),
+
+    /**
+     * A decided input was sent to the actuator.
+     */
+    EXECUTION(3);
+
+    private static final JournalRecordType[] BY_CODE = new JournalRecordType[4];
+
+    static {
+        for (JournalRecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    /**
+     * Constructs a new record type.
+     *
+     * @param code The code the type is stored as.
+     */
+    JournalRecordType(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Gets the code the type is stored as.
+     *
+     * @return The type's code.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Finds the type stored as a code.
+     *
+     * @param code The stored code.
+     * @return The type, or null if no type has the code.
+     */
+    public static @Nullable JournalRecordType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
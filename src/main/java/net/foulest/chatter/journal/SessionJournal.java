@@ -0,0 +1,325 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.journal;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends every vote, decision and execution of a session to a binary file.
+ * <p>
+ * The file starts with a {@value #HEADER_SIZE}-byte header and is followed
+ * by fixed-width {@value #RECORD_SIZE}-byte records, all big-endian:
+ * <pre>
+ * header: int magic "CHJR", short version, short record size, long created (epoch ms)
+ * record: long timestamp (epoch ms), int channel, int user, int votes,
+ *         short ordinal, byte type, byte flags (bit 0: long input, bit 1: continuation)
+ * </pre>
+ * A message holding several commands is one ballot: its first command is
+ * recorded as a vote and each further command as a vote with the
+ * continuation flag set, straight after it, so the ballot can be rebuilt.
+ * Recording only copies the fields into an in-memory buffer under a short
+ * lock, so it is cheap enough to leave on at peak chat rates. A journal
+ * thread swaps the buffer out and writes and forces it in one go every
+ * commit period, so many records share each write and each sync. If the
+ * buffer fills up between commits, records are dropped and counted rather
+ * than blocking chat. A torn record left by a crash is cut off when the
+ * journal is opened again, and new records are appended after it.
+ */
+@Slf4j(topic = "Chatter")
+public class SessionJournal implements Closeable {
+
+    /**
+     * The size of the file header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of each record in bytes.
+     */
+    public static final int RECORD_SIZE = 24;
+
+    /**
+     * How often buffered records are written to the file when no period is given, in milliseconds.
+     */
+    public static final long DEFAULT_COMMIT_MILLIS = 50;
+
+    // Identifies journal files; "CHJR" in ASCII
+    static final int MAGIC = 0x43484A52;
+    static final short VERSION = 1;
+
+    // Record flag bits
+    static final int LONG_INPUT_FLAG = 1;
+    static final int CONTINUATION_FLAG = 2;
+
+    // Records buffered between commits; enough for 160,000 records per second at the default period
+    private static final int BUFFER_RECORDS = 8192;
+
+    private final FileChannel channel;
+    private final ScheduledThreadPoolExecutor committer;
+    private final LongAdder dropped = new LongAdder();
+
+    // Buffer records are added to, guarded by this
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+
+    // Buffer being written to the file, only touched by the commit in progress
+    private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+
+    // Whether the journal no longer takes records, guarded by this
+    private boolean closed;
+
+    /**
+     * The number of records written to the file since the journal was opened.
+     */
+    @Getter
+    private volatile long committedRecords;
+
+    /**
+     * Opens a journal for appending, creating it if it doesn't exist.
+     *
+     * @param path         The path of the journal file.
+     * @param commitMillis How often buffered records are written to the file in milliseconds.
+     * @throws IOException If the file can't be opened or isn't a journal.
+     */
+    public SessionJournal(@NotNull Path path, long commitMillis) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+            long size = channel.size();
+
+            if (size == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE)
+                        .putLong(System.currentTimeMillis()).flip();
+                writeFully(header, 0);
+                channel.force(true);
+            } else {
+                readHeader(channel, path);
+
+                // Cuts off a record that was only partly written before a crash.
+                long whole = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+
+                if (whole != size) {
+                    log.warn("Cutting off a torn record at the end of journal {}", path);
+                    channel.truncate(whole);
+                }
+            }
+
+            channel.position(channel.size());
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+
+        committer = ChatterThreads.newScheduler("Chatter-Journal");
+        committer.scheduleWithFixedDelay(this::commit, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the key a channel is stored under.
+     * The key is the channel name's {@link String#hashCode()}, so readers can compute it for a known channel.
+     *
+     * @param channel The channel's name.
+     * @return The channel's key.
+     */
+    public static int channelKey(@NotNull String channel) {
+        return channel.hashCode();
+    }
+
+    /**
+     * Adds a record, to be written to the file with the next commit.
+     * The record is dropped if the journal is closed or its buffer is full.
+     *
+     * @param type      What the record describes.
+     * @param channel   The key of the channel, from {@link #channelKey(String)}.
+     * @param user      The key of the user who voted, or 0 if none or unknown.
+     * @param votes     The number of votes a vote counts as, or 0 for other records.
+     * @param ordinal   The ordinal of the input, or a negative number if unknown.
+     * @param longInput Whether the input is long.
+     */
+    public void record(@NotNull JournalRecordType type, int channel, int user, int votes, int ordinal,
+                       boolean longInput) {
+        record(type, channel, user, votes, ordinal, longInput, false);
+    }
+
+    /**
+     * Adds a record, to be written to the file with the next commit.
+     * The record is dropped if the journal is closed or its buffer is full.
+     *
+     * @param type         What the record describes.
+     * @param channel      The key of the channel, from {@link #channelKey(String)}.
+     * @param user         The key of the user who voted, or 0 if none or unknown.
+     * @param votes        The number of votes a vote counts as, or 0 for other records.
+     * @param ordinal      The ordinal of the input, or a negative number if unknown.
+     * @param longInput    Whether the input is long.
+     * @param continuation Whether the vote continues the ballot of the user's vote recorded before it.
+     */
+    public void record(@NotNull JournalRecordType type, int channel, int user, int votes, int ordinal,
+                       boolean longInput, boolean continuation) {
+        byte flags = (byte) ((longInput ? LONG_INPUT_FLAG : 0) | (continuation ? CONTINUATION_FLAG : 0));
+        short storedOrdinal = (short) (ordinal < 0 || ordinal >= JournalRecord.UNKNOWN_ORDINAL
+                ? JournalRecord.UNKNOWN_ORDINAL : ordinal);
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            if (active.remaining() < RECORD_SIZE) {
+                dropped.increment();
+                return;
+            }
+
+            active.putLong(System.currentTimeMillis()).putInt(channel).putInt(user).putInt(votes)
+                    .putShort(storedOrdinal).put((byte) type.getCode()).put(flags);
+        }
+    }
+
+    /**
+     * Writes the remaining records and closes the file.
+     *
+     * @throws IOException If the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        committer.shutdown();
+
+        try {
+            committer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // The committer has stopped, so this is the only commit left.
+        commit();
+        channel.close();
+        log.info("Closed the session journal after {} record(s)", committedRecords);
+    }
+
+    /**
+     * Reads a file's header and checks that it is a journal header this version can read.
+     *
+     * @param channel The open file.
+     * @param path    The path of the file, for the error message.
+     * @throws IOException If the file can't be read or its header isn't a supported journal header.
+     */
+    static void readHeader(@NotNull FileChannel channel, @NotNull Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        // Reads until the header is full or the file ends.
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+
+        header.flip();
+
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a session journal: " + path);
+        }
+
+        short version = header.getShort();
+        short recordSize = header.getShort();
+
+        if (version != VERSION || recordSize != RECORD_SIZE) {
+            throw new IOException("Unsupported journal version " + version + " in " + path);
+        }
+    }
+
+    /**
+     * Writes the records added since the last commit to the file and forces them to disk.
+     * Only one commit runs at a time: the committer's, or the final one after it stopped.
+     */
+    private void commit() {
+        ByteBuffer batch;
+
+        synchronized (this) {
+            if (active.position() == 0) {
+                reportDropped();
+                return;
+            }
+
+            batch = active;
+            active = spare;
+            spare = batch;
+        }
+
+        batch.flip();
+        int records = batch.remaining() / RECORD_SIZE;
+
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+
+            channel.force(false);
+            committedRecords += records;
+        } catch (IOException ex) {
+            log.error("Failed to write {} record(s) to the session journal.", records, ex);
+        } finally {
+            batch.clear();
+        }
+
+        reportDropped();
+    }
+
+    /**
+     * Logs how many records were dropped since the last report.
+     */
+    private void reportDropped() {
+        long lost = dropped.sumThenReset();
+
+        if (lost > 0) {
+            log.warn("Dropped {} session journal record(s); the journal couldn't keep up.", lost);
+        }
+    }
+
+    /**
+     * Writes a buffer to the file at a position.
+     *
+     * @param buffer   The buffer to write.
+     * @param position The file position to write at.
+     * @throws IOException If the file can't be written.
+     */
+    private void writeFully(@NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
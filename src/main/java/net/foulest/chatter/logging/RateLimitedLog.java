@@ -0,0 +1,114 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits one category of log lines to a fixed number per second.
+ * <p>
+ * Lines over the limit are counted instead of logged, and the count is
+ * reported in one summary line when the next second's first line comes in.
+ * Messages use SLF4J placeholders, so nothing is formatted for lines that
+ * are dropped or disabled. The limiter is lock-free and safe to share
+ * between threads.
+ */
+public class RateLimitedLog {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger logger;
+    private final String category;
+    private final int linesPerSecond;
+
+    // The second the current permits belong to
+    private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger used = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Constructs a new rate-limited log.
+     *
+     * @param logger         The logger to write to.
+     * @param category       The name of the category, used in the suppressed-count summary.
+     * @param linesPerSecond The maximum number of lines logged per second.
+     */
+    public RateLimitedLog(@NotNull Logger logger, @NotNull String category, int linesPerSecond) {
+        this.logger = logger;
+        this.category = category;
+        this.linesPerSecond = linesPerSecond;
+    }
+
+    /**
+     * Logs a line at info level if the category is under its limit.
+     *
+     * @param format The SLF4J message format.
+     * @param arg    The message argument.
+     */
+    public void info(@NotNull String format, Object arg) {
+        if (logger.isInfoEnabled() && tryAcquire()) {
+            logger.info(format, arg);
+        }
+    }
+
+    /**
+     * Logs a line at info level if the category is under its limit.
+     *
+     * @param format The SLF4J message format.
+     * @param arg1   The first message argument.
+     * @param arg2   The second message argument.
+     */
+    public void info(@NotNull String format, Object arg1, Object arg2) {
+        if (logger.isInfoEnabled() && tryAcquire()) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    /**
+     * Takes a permit for one line, reporting the previous second's suppressed lines if it has ended.
+     *
+     * @return Whether the line may be logged.
+     */
+    private boolean tryAcquire() {
+        long now = System.nanoTime() / NANOS_PER_SECOND;
+        long current = second.get();
+
+        // The first caller of a new second resets the permits.
+        if (now != current && second.compareAndSet(current, now)) {
+            used.set(0);
+            long dropped = suppressed.sumThenReset();
+
+            if (dropped > 0) {
+                logger.info("Suppressed {} '{}' log lines", dropped, category);
+            }
+        }
+
+        if (used.incrementAndGet() <= linesPerSecond) {
+            return true;
+        }
+
+        suppressed.increment();
+        return false;
+    }
+}
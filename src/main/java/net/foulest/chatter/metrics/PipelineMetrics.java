@@ -0,0 +1,397 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.metrics;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for every stage of the input pipeline.
+ * <p>
+ * Messages flow from receipt, through the vote window, to the key press and
+ * its release. Every counter is a striped adder and every histogram is
+ * lock-free, so recording on the per-message path never allocates or blocks.
+ */
+@Slf4j(topic = "Chatter")
+public class PipelineMetrics implements PipelineMetricsMBean {
+
+    private static final String OBJECT_NAME = "net.foulest.chatter:type=PipelineMetrics";
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder nonPrivmsg = new LongAdder();
+    private final LongAdder notBroadcaster = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder unfocused = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final AtomicLong ingressHighWaterMark = new AtomicLong();
+
+    /**
+     * The number of votes in each non-empty window.
+     */
+    @Getter
+    private final Histogram votesPerWindow = new Histogram();
+
+    /**
+     * The time from receiving a message to queuing its vote, in nanoseconds.
+     */
+    @Getter
+    private final Histogram ingestLatency = new Histogram();
+
+    /**
+     * The time from receiving a vote to its window closing, in nanoseconds.
+     */
+    @Getter
+    private final Histogram decisionLatency = new Histogram();
+
+    /**
+     * The time from a window's decision to the key press, in nanoseconds.
+     */
+    @Getter
+    private final Histogram pressLatency = new Histogram();
+
+    /**
+     * The time from a key press to its release, in nanoseconds.
+     */
+    @Getter
+    private final Histogram holdDuration = new Histogram();
+
+    private ScheduledExecutorService reporter;
+
+    // Counter values as of the last summary line, used to report rates
+    private long lastReceived;
+    private long lastQueued;
+
+    /**
+     * Records a chat event that was received.
+     */
+    public void onReceived() {
+        received.increment();
+    }
+
+    /**
+     * Records an event that was ignored because it wasn't a chat message.
+     */
+    public void onNonPrivmsg() {
+        nonPrivmsg.increment();
+    }
+
+    /**
+     * Records a message that was ignored because the bot isn't the broadcaster.
+     */
+    public void onNotBroadcaster() {
+        notBroadcaster.increment();
+    }
+
+    /**
+     * Records a message that was ignored because it isn't a command.
+     */
+    public void onUnmatched() {
+        unmatched.increment();
+    }
+
+    /**
+     * Records a command that was ignored because the application wasn't in focus.
+     */
+    public void onUnfocused() {
+        unfocused.increment();
+    }
+
+    /**
+     * Records a message that was queued as a vote.
+     *
+     * @param receivedNanos The time the message was received.
+     */
+    public void onQueued(long receivedNanos) {
+        queued.increment();
+        ingestLatency.record(System.nanoTime() - receivedNanos);
+    }
+
+    /**
+     * Records the number of votes offered to a closed window.
+     *
+     * @param offered The number of votes offered, including shed votes.
+     */
+    public void onWindowOffered(long offered) {
+        ingressHighWaterMark.accumulateAndGet(offered, Math::max);
+    }
+
+    /**
+     * Records votes shed because a window's buffer was full.
+     *
+     * @param votes The number of votes shed.
+     */
+    public void onShed(long votes) {
+        shed.add(votes);
+    }
+
+    /**
+     * Records votes skipped because their user was out of votes.
+     *
+     * @param votes The number of duplicate votes skipped.
+     */
+    public void onDuplicates(long votes) {
+        duplicates.add(votes);
+    }
+
+    /**
+     * Records a closed window that had votes.
+     *
+     * @param votes            The number of votes in the window.
+     * @param meanVoteAgeNanos The mean time from receiving a vote to the window closing.
+     */
+    public void onWindowClosed(long votes, long meanVoteAgeNanos) {
+        votesPerWindow.record(votes);
+        decisionLatency.record(meanVoteAgeNanos, votes);
+    }
+
+    /**
+     * Records an input that was pressed.
+     *
+     * @param decidedNanos The time the input was handed to the actuator.
+     */
+    public void onPressed(long decidedNanos) {
+        executed.increment();
+        pressLatency.record(System.nanoTime() - decidedNanos);
+    }
+
+    /**
+     * Records an input that was released.
+     *
+     * @param pressedNanos The time the input was pressed.
+     */
+    public void onReleased(long pressedNanos) {
+        holdDuration.record(System.nanoTime() - pressedNanos);
+    }
+
+    @Override
+    public long getReceived() {
+        return received.sum();
+    }
+
+    @Override
+    public long getNonPrivmsg() {
+        return nonPrivmsg.sum();
+    }
+
+    @Override
+    public long getNotBroadcaster() {
+        return notBroadcaster.sum();
+    }
+
+    @Override
+    public long getUnmatched() {
+        return unmatched.sum();
+    }
+
+    @Override
+    public long getUnfocused() {
+        return unfocused.sum();
+    }
+
+    @Override
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    @Override
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    @Override
+    public long getShed() {
+        return shed.sum();
+    }
+
+    @Override
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    @Override
+    public long getIngressHighWaterMark() {
+        return ingressHighWaterMark.get();
+    }
+
+    @Override
+    public long getWindows() {
+        return votesPerWindow.getCount();
+    }
+
+    @Override
+    public double getVotesPerWindowP50() {
+        return votesPerWindow.getPercentile(50);
+    }
+
+    @Override
+    public double getVotesPerWindowP99() {
+        return votesPerWindow.getPercentile(99);
+    }
+
+    @Override
+    public long getVotesPerWindowMax() {
+        return votesPerWindow.getMax();
+    }
+
+    @Override
+    public double getIngestLatencyP50Micros() {
+        return micros(ingestLatency, 50);
+    }
+
+    @Override
+    public double getIngestLatencyP99Micros() {
+        return micros(ingestLatency, 99);
+    }
+
+    @Override
+    public double getDecisionLatencyP50Micros() {
+        return micros(decisionLatency, 50);
+    }
+
+    @Override
+    public double getDecisionLatencyP99Micros() {
+        return micros(decisionLatency, 99);
+    }
+
+    @Override
+    public double getPressLatencyP50Micros() {
+        return micros(pressLatency, 50);
+    }
+
+    @Override
+    public double getPressLatencyP99Micros() {
+        return micros(pressLatency, 99);
+    }
+
+    @Override
+    public double getHoldDurationP50Micros() {
+        return micros(holdDuration, 50);
+    }
+
+    @Override
+    public double getHoldDurationP99Micros() {
+        return micros(holdDuration, 99);
+    }
+
+    @Override
+    public void reset() {
+        received.reset();
+        nonPrivmsg.reset();
+        notBroadcaster.reset();
+        unmatched.reset();
+        unfocused.reset();
+        queued.reset();
+        executed.reset();
+        shed.reset();
+        duplicates.reset();
+        ingressHighWaterMark.set(0);
+        votesPerWindow.reset();
+        ingestLatency.reset();
+        decisionLatency.reset();
+        pressLatency.reset();
+        holdDuration.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException ex) {
+            log.warn("Failed to register the pipeline metrics MBean.", ex);
+        }
+    }
+
+    /**
+     * Logs a compact summary line on a fixed period.
+     *
+     * @param periodSeconds How often to log the summary in seconds.
+     */
+    public synchronized void startReporting(long periodSeconds) {
+        if (reporter != null) {
+            return;
+        }
+
+        reporter = ChatterThreads.newScheduler("Chatter-Metrics");
+
+        reporter.scheduleAtFixedRate(() -> log.info(summary(periodSeconds)),
+                periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops logging the summary line.
+     */
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * Builds a compact one-line summary of the metrics.
+     *
+     * @param periodSeconds The time since the last summary in seconds, used for rates.
+     * @return The summary line.
+     */
+    public synchronized String summary(long periodSeconds) {
+        long receivedNow = getReceived();
+        long queuedNow = getQueued();
+        double receivedRate = (receivedNow - lastReceived) / (double) Math.max(1, periodSeconds);
+        double queuedRate = (queuedNow - lastQueued) / (double) Math.max(1, periodSeconds);
+        lastReceived = receivedNow;
+        lastQueued = queuedNow;
+
+        return String.format(Locale.ROOT, "[Metrics] recv=%d (%.0f/s) queued=%d (%.0f/s) shed=%d dup=%d hwm=%d"
+                        + " executed=%d | ignored: privmsg=%d broadcaster=%d unmatched=%d unfocused=%d"
+                        + " | votes/window p50=%.0f max=%d | p50/p99 us: ingest=%.1f/%.1f"
+                        + " decision=%.0f/%.0f press=%.0f/%.0f hold=%.0f/%.0f",
+                receivedNow, receivedRate, queuedNow, queuedRate, getShed(), getDuplicates(),
+                getIngressHighWaterMark(), getExecuted(),
+                getNonPrivmsg(), getNotBroadcaster(), getUnmatched(), getUnfocused(),
+                getVotesPerWindowP50(), getVotesPerWindowMax(),
+                getIngestLatencyP50Micros(), getIngestLatencyP99Micros(),
+                getDecisionLatencyP50Micros(), getDecisionLatencyP99Micros(),
+                getPressLatencyP50Micros(), getPressLatencyP99Micros(),
+                getHoldDurationP50Micros(), getHoldDurationP99Micros());
+    }
+
+    private static double micros(Histogram histogram, double percentile) {
+        return histogram.getPercentile(percentile) / 1_000.0;
+    }
+}
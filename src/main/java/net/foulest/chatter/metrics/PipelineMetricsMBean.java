@@ -0,0 +1,185 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.metrics;
+
+/**
+ * JMX view of the pipeline metrics.
+ * <p>
+ * Latencies are reported in microseconds.
+ */
+public interface PipelineMetricsMBean {
+
+    /**
+     * Gets the number of chat events received.
+     *
+     * @return The number of chat events received.
+     */
+    long getReceived();
+
+    /**
+     * Gets the number of events that weren't chat messages.
+     *
+     * @return The number of events that weren't chat messages.
+     */
+    long getNonPrivmsg();
+
+    /**
+     * Gets the number of messages ignored because the bot isn't the broadcaster.
+     *
+     * @return The number of messages ignored because the bot isn't the broadcaster.
+     */
+    long getNotBroadcaster();
+
+    /**
+     * Gets the number of messages that weren't commands.
+     *
+     * @return The number of messages that weren't commands.
+     */
+    long getUnmatched();
+
+    /**
+     * Gets the number of commands ignored because the application wasn't in focus.
+     *
+     * @return The number of commands ignored because the application wasn't in focus.
+     */
+    long getUnfocused();
+
+    /**
+     * Gets the number of votes queued.
+     *
+     * @return The number of votes queued.
+     */
+    long getQueued();
+
+    /**
+     * Gets the number of inputs pressed.
+     *
+     * @return The number of inputs pressed.
+     */
+    long getExecuted();
+
+    /**
+     * Gets the number of votes shed because a window's buffer was full.
+     *
+     * @return The number of votes shed.
+     */
+    long getShed();
+
+    /**
+     * Gets the number of votes skipped because their user was out of votes.
+     *
+     * @return The number of duplicate votes skipped.
+     */
+    long getDuplicates();
+
+    /**
+     * Gets the most votes offered to any one window, including shed votes.
+     *
+     * @return The most votes offered to a window.
+     */
+    long getIngressHighWaterMark();
+
+    /**
+     * Gets the number of windows that had votes.
+     *
+     * @return The number of windows that had votes.
+     */
+    long getWindows();
+
+    /**
+     * Gets the median number of votes per window.
+     *
+     * @return The median number of votes per window.
+     */
+    double getVotesPerWindowP50();
+
+    /**
+     * Gets the 99th percentile of votes per window.
+     *
+     * @return The 99th percentile of votes per window.
+     */
+    double getVotesPerWindowP99();
+
+    /**
+     * Gets the most votes seen in a window.
+     *
+     * @return The most votes seen in a window.
+     */
+    long getVotesPerWindowMax();
+
+    /**
+     * Gets the median time from receiving a message to queuing its vote.
+     *
+     * @return The median time from receiving a message to queuing its vote.
+     */
+    double getIngestLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile time from receiving a message to queuing its vote.
+     *
+     * @return The 99th percentile time from receiving a message to queuing its vote.
+     */
+    double getIngestLatencyP99Micros();
+
+    /**
+     * Gets the median time from queuing a vote to its window closing.
+     *
+     * @return The median time from queuing a vote to its window closing.
+     */
+    double getDecisionLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile time from queuing a vote to its window closing.
+     *
+     * @return The 99th percentile time from queuing a vote to its window closing.
+     */
+    double getDecisionLatencyP99Micros();
+
+    /**
+     * Gets the median time from a decision to its key press.
+     *
+     * @return The median time from a decision to its key press.
+     */
+    double getPressLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile time from a decision to its key press.
+     *
+     * @return The 99th percentile time from a decision to its key press.
+     */
+    double getPressLatencyP99Micros();
+
+    /**
+     * Gets the median time a pressed input was held.
+     *
+     * @return The median time a pressed input was held.
+     */
+    double getHoldDurationP50Micros();
+
+    /**
+     * Gets the 99th percentile time a pressed input was held.
+     *
+     * @return The 99th percentile time a pressed input was held.
+     */
+    double getHoldDurationP99Micros();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
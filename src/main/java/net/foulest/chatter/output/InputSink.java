@@ -0,0 +1,90 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.output;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+/**
+ * Receives the low-level input events emitted by the actuator.
+ * <p>
+ * Every event carries the {@link System#nanoTime()} at which it was emitted.
+ * Implementations are only called from the actuator thread.
+ */
+public interface InputSink {
+
+    /**
+     * Presses a key.
+     *
+     * @param keyCode  The key code to press.
+     * @param nanoTime The time the event was emitted.
+     */
+    void keyPress(int keyCode, long nanoTime);
+
+    /**
+     * Releases a key.
+     *
+     * @param keyCode  The key code to release.
+     * @param nanoTime The time the event was emitted.
+     */
+    void keyRelease(int keyCode, long nanoTime);
+
+    /**
+     * Presses one or more mouse buttons.
+     *
+     * @param buttons  The button mask to press.
+     * @param nanoTime The time the event was emitted.
+     */
+    void mousePress(int buttons, long nanoTime);
+
+    /**
+     * Releases one or more mouse buttons.
+     *
+     * @param buttons  The button mask to release.
+     * @param nanoTime The time the event was emitted.
+     */
+    void mouseRelease(int buttons, long nanoTime);
+
+    /**
+     * Moves the mouse to a screen position.
+     *
+     * @param x        The x coordinate to move to.
+     * @param y        The y coordinate to move to.
+     * @param nanoTime The time the event was emitted.
+     */
+    void mouseMove(int x, int y, long nanoTime);
+
+    /**
+     * Clicks one or more mouse buttons.
+     *
+     * @param buttons  The button mask to click.
+     * @param nanoTime The time the event was emitted.
+     */
+    default void mouseClick(int buttons, long nanoTime) {
+        mousePress(buttons, nanoTime);
+        mouseRelease(buttons, nanoTime);
+    }
+
+    /**
+     * Gets the current mouse position.
+     *
+     * @return The mouse position, or null if it is unknown.
+     */
+    @Nullable Point getPointerLocation();
+}
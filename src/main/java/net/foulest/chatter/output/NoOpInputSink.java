@@ -0,0 +1,64 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.output;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+/**
+ * Input sink that discards every event.
+ */
+public final class NoOpInputSink implements InputSink {
+
+    /**
+     * The shared no-op sink instance.
+     */
+    public static final NoOpInputSink INSTANCE = new NoOpInputSink();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private NoOpInputSink() {
+    }
+
+    @Override
+    public void keyPress(int keyCode, long nanoTime) {
+    }
+
+    @Override
+    public void keyRelease(int keyCode, long nanoTime) {
+    }
+
+    @Override
+    public void mousePress(int buttons, long nanoTime) {
+    }
+
+    @Override
+    public void mouseRelease(int buttons, long nanoTime) {
+    }
+
+    @Override
+    public void mouseMove(int x, int y, long nanoTime) {
+    }
+
+    @Override
+    public @Nullable Point getPointerLocation() {
+        return null;
+    }
+}
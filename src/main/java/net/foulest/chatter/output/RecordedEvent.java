@@ -0,0 +1,55 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.output;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Represents an input event captured by a {@link RecordingInputSink}.
+ */
+@Getter
+@ToString
+public class RecordedEvent {
+
+    private final long sequence;
+    private final long nanoTime;
+    private final InputEventType type;
+    private final int code;
+    private final int x;
+    private final int y;
+
+    /**
+     * Constructs a new recorded event.
+     *
+     * @param sequence The position of the event in the recording.
+     * @param nanoTime The time the event was emitted.
+     * @param type     The type of the event.
+     * @param code     The key code or button mask, or 0 for mouse moves.
+     * @param x        The x coordinate of a mouse move, or 0.
+     * @param y        The y coordinate of a mouse move, or 0.
+     */
+    public RecordedEvent(long sequence, long nanoTime, InputEventType type, int code, int x, int y) {
+        this.sequence = sequence;
+        this.nanoTime = nanoTime;
+        this.type = type;
+        this.code = code;
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.output;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Input sink that records every event into a lock-free ring buffer.
+ * <p>
+ * Events are stored in preallocated primitive arrays, so recording never
+ * allocates. Once the buffer is full the oldest events are overwritten.
+ * This is used to run the pipeline headless and to assert on the
+ * ordering and latency of emitted events.
+ */
+public class RecordingInputSink implements InputSink {
+
+    private static final InputEventType[] TYPES = InputEventType.values();
+
+    private final int mask;
+    private final long[] nanoTimes;
+    private final int[] types;
+    private final int[] codes;
+    private final int[] xs;
+    private final int[] ys;
+
+    // Holds the sequence number + 1 of the event last published into each slot
+    private final AtomicLongArray published;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    // Marks that no mouse position has been set or recorded yet
+    private static final long NO_POINTER = Long.MIN_VALUE;
+
+    // Holds the last mouse position packed as x << 32 | y
+    private volatile long pointer = NO_POINTER;
+
+    /**
+     * Constructs a new recording input sink.
+     *
+     * @param capacity The number of events to retain, rounded up to a power of two.
+     */
+    public RecordingInputSink(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        mask = size - 1;
+        nanoTimes = new long[size];
+        types = new int[size];
+        codes = new int[size];
+        xs = new int[size];
+        ys = new int[size];
+        published = new AtomicLongArray(size);
+    }
+
+    @Override
+    public void keyPress(int keyCode, long nanoTime) {
+        record(InputEventType.KEY_PRESS, keyCode, 0, 0, nanoTime);
+    }
+
+    @Override
+    public void keyRelease(int keyCode, long nanoTime) {
+        record(InputEventType.KEY_RELEASE, keyCode, 0, 0, nanoTime);
+    }
+
+    @Override
+    public void mousePress(int buttons, long nanoTime) {
+        record(InputEventType.MOUSE_PRESS, buttons, 0, 0, nanoTime);
+    }
+
+    @Override
+    public void mouseRelease(int buttons, long nanoTime) {
+        record(InputEventType.MOUSE_RELEASE, buttons, 0, 0, nanoTime);
+    }
+
+    @Override
+    public void mouseMove(int x, int y, long nanoTime) {
+        record(InputEventType.MOUSE_MOVE, 0, x, y, nanoTime);
+    }
+
+    @Override
+    public @Nullable Point getPointerLocation() {
+        long packed = pointer;
+        return packed == NO_POINTER ? null : new Point((int) (packed >> 32), (int) packed);
+    }
+
+    /**
+     * Sets the mouse position reported before any move is recorded.
+     *
+     * @param location The mouse position.
+     */
+    public void setPointerLocation(@Nullable Point location) {
+        pointer = location == null ? NO_POINTER : pack(location.x, location.y);
+    }
+
+    /**
+     * Gets the total number of events recorded, including overwritten ones.
+     *
+     * @return The number of events recorded.
+     */
+    public long getEventCount() {
+        return nextSequence.get();
+    }
+
+    /**
+     * Copies the events still retained in the buffer, oldest first.
+     * Events being written concurrently are skipped.
+     *
+     * @return The retained events.
+     */
+    public @NotNull List<RecordedEvent> getEvents() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - (mask + 1));
+        List<RecordedEvent> events = new ArrayList<>((int) (end - start));
+
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) sequence & mask;
+
+            if (published.get(slot) != sequence + 1) {
+                continue;
+            }
+
+            RecordedEvent event = new RecordedEvent(sequence, nanoTimes[slot], TYPES[types[slot]],
+                    codes[slot], xs[slot], ys[slot]);
+
+            // Drops the event if a writer lapped the buffer while we were copying it.
+            if (published.get(slot) == sequence + 1) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Discards every recorded event.
+     * This must not be called while events are being recorded.
+     */
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            published.set(i, 0);
+        }
+        nextSequence.set(0);
+    }
+
+    private void record(@NotNull InputEventType type, int code, int x, int y, long nanoTime) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) sequence & mask;
+
+        // Marks the slot as being written before touching its data.
+        published.set(slot, 0);
+        nanoTimes[slot] = nanoTime;
+        types[slot] = type.ordinal();
+        codes[slot] = code;
+        xs[slot] = x;
+        ys[slot] = y;
+        published.lazySet(slot, sequence + 1);
+
+        if (type == InputEventType.MOUSE_MOVE) {
+            pointer = pack(x, y);
+        }
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.output;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+/**
+ * Input sink that emits events through a {@link Robot}.
+ */
+public class RobotInputSink implements InputSink {
+
+    private final Robot robot;
+
+    /**
+     * Constructs a new robot input sink.
+     *
+     * @param robot The robot used to emit events.
+     */
+    public RobotInputSink(@NotNull Robot robot) {
+        this.robot = robot;
+    }
+
+    @Override
+    public void keyPress(int keyCode, long nanoTime) {
+        robot.keyPress(keyCode);
+    }
+
+    @Override
+    public void keyRelease(int keyCode, long nanoTime) {
+        robot.keyRelease(keyCode);
+    }
+
+    @Override
+    public void mousePress(int buttons, long nanoTime) {
+        robot.mousePress(buttons);
+    }
+
+    @Override
+    public void mouseRelease(int buttons, long nanoTime) {
+        robot.mouseRelease(buttons);
+    }
+
+    @Override
+    public void mouseMove(int x, int y, long nanoTime) {
+        robot.mouseMove(x, y);
+    }
+
+    @Override
+    public @Nullable Point getPointerLocation() {
+        PointerInfo pointerInfo = MouseInfo.getPointerInfo();
+        return pointerInfo == null ? null : pointerInfo.getLocation();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.profile;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import net.foulest.chatter.util.Application;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Loads application profiles from a directory of JSON files and reloads them when they change.
+ * <p>
+ * Profiles replace the built-in application of the same name, and any
+ * other profiles are added after the built-ins. Every reload compiles the
+ * profiles off the chat path and then publishes a new {@link ProfileSnapshot}
+ * through a volatile field, so readers never take a lock or see a
+ * half-loaded profile. A file that fails to load keeps its last good
+ * version. Files that haven't changed keep their compiled application, so
+ * pipelines only see the profiles that were actually edited.
+ */
+@Slf4j(topic = "Chatter")
+public class ProfileDirectory {
+
+    // Time to wait for more changes before reloading, since editors often write a file in several steps
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final Path directory;
+    private final List<Application> builtIns;
+    private final List<Consumer<ProfileSnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    // Last good profile and modification time of each file, only touched while reloading
+    private final Map<Path, Application> loaded = new HashMap<>();
+    private final Map<Path, FileTime> loadedTimes = new HashMap<>();
+
+    /**
+     * The current snapshot of every application.
+     */
+    @Getter
+    private volatile ProfileSnapshot snapshot;
+
+    private WatchService watchService;
+
+    /**
+     * Constructs a new profile directory.
+     *
+     * @param directory The directory holding the profile files.
+     * @param builtIns  The built-in applications, in menu order.
+     */
+    public ProfileDirectory(@NotNull Path directory, @NotNull List<Application> builtIns) {
+        this.directory = directory;
+        this.builtIns = new ArrayList<>(builtIns);
+        snapshot = new ProfileSnapshot(0, builtIns);
+    }
+
+    /**
+     * Adds a listener that is called with each new snapshot after it is published.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(@NotNull Consumer<ProfileSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Loads every profile in the directory and publishes a new snapshot if anything changed.
+     *
+     * @return The current snapshot.
+     */
+    public synchronized @NotNull ProfileSnapshot reload() {
+        Map<Path, Application> files = new TreeMap<>();
+        Map<Path, FileTime> times = new HashMap<>();
+
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*.json")) {
+                for (Path path : paths) {
+                    loadFile(path, files, times);
+                }
+            } catch (IOException ex) {
+                log.error("Failed to list the profiles in {}", directory, ex);
+                return snapshot;
+            }
+        }
+
+        loaded.clear();
+        loaded.putAll(files);
+        loadedTimes.clear();
+        loadedTimes.putAll(times);
+
+        List<Application> applications = merge(files.values());
+        ProfileSnapshot current = snapshot;
+
+        if (applications.equals(current.getApplications())) {
+            return current;
+        }
+
+        ProfileSnapshot next = new ProfileSnapshot(current.getVersion() + 1, applications);
+        snapshot = next;
+        log.info("Loaded {} application profile(s) from {}", files.size(), directory);
+
+        for (Consumer<ProfileSnapshot> listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException ex) {
+                log.error("Failed to apply the reloaded profiles.", ex);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Starts watching the directory and reloading it on changes.
+     * Does nothing if the directory doesn't exist.
+     */
+    public synchronized void start() {
+        if (watchService != null || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ex) {
+            log.error("Failed to watch the profiles in {}", directory, ex);
+            return;
+        }
+
+        WatchService service = watchService;
+        ChatterThreads.start("Chatter-Profiles", () -> watch(service));
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                log.warn("Failed to stop watching the profiles.", ex);
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * Waits for changes to the directory and reloads it once they settle.
+     *
+     * @param service The watch service to take changes from.
+     */
+    private void watch(@NotNull WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                key.pollEvents();
+                key.reset();
+
+                // Waits until no change has happened for the debounce period.
+                while ((key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+
+                reload();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // The directory is no longer watched.
+        }
+    }
+
+    /**
+     * Loads a profile file, reusing its last good version if it is unchanged or invalid.
+     *
+     * @param path  The profile file.
+     * @param files The profiles loaded so far, keyed by file.
+     * @param times The modification times of the loaded files.
+     */
+    private void loadFile(@NotNull Path path, @NotNull Map<Path, Application> files,
+                          @NotNull Map<Path, FileTime> times) {
+        Application previous = loaded.get(path);
+
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+
+            if (previous != null && modified.equals(loadedTimes.get(path))) {
+                files.put(path, previous);
+                times.put(path, modified);
+                return;
+            }
+
+            files.put(path, ProfileReader.read(path));
+            times.put(path, modified);
+        } catch (IOException | IllegalArgumentException ex) {
+            if (previous == null) {
+                log.warn("Skipping invalid profile {}: {}", path.getFileName(), ex.getMessage());
+            } else {
+                log.warn("Keeping the previous version of profile {}: {}", path.getFileName(), ex.getMessage());
+                files.put(path, previous);
+                times.put(path, loadedTimes.get(path));
+            }
+        }
+    }
+
+    /**
+     * Merges loaded profiles into the built-in applications.
+     *
+     * @param profiles The loaded profiles, in file name order.
+     * @return The applications in menu order.
+     */
+    private @NotNull List<Application> merge(@NotNull Collection<Application> profiles) {
+        Map<String, Application> byName = new LinkedHashMap<>();
+
+        for (Application application : builtIns) {
+            byName.put(application.getName().toLowerCase(Locale.ROOT), application);
+        }
+
+        Set<String> seen = new HashSet<>();
+
+        for (Application profile : profiles) {
+            String name = profile.getName().toLowerCase(Locale.ROOT);
+
+            if (!seen.add(name)) {
+                log.warn("Ignoring duplicate profile for {}", profile.getName());
+                continue;
+            }
+
+            byName.put(name, profile);
+        }
+        return new ArrayList<>(byName.values());
+    }
+}
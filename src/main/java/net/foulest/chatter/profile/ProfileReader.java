@@ -0,0 +1,357 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.profile;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.foulest.chatter.input.CommandIndex;
+import net.foulest.chatter.input.Input;
+import net.foulest.chatter.input.type.KeyInput;
+import net.foulest.chatter.input.type.MacroInput;
+import net.foulest.chatter.input.type.MouseInput;
+import net.foulest.chatter.random.RandomDistribution;
+import net.foulest.chatter.util.Application;
+import net.foulest.chatter.vote.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Reads an application profile from a JSON file.
+ * <p>
+ * A profile has a {@code name}, a list of {@code windowTitles} and a list
+ * of {@code inputs}. Each input has a {@code type} of {@code key},
+ * {@code mouse} or {@code macro}:
+ * <pre>{@code
+ * {"type": "key", "name": "JUMP", "key": "SPACE", "short": 500, "long": 1000}
+ * {"type": "mouse", "name": "LEFT", "direction": "LEFT", "short": 250, "long": 500,
+ *  "velocity": 400, "easing": "EASE_IN_OUT"}
+ * {"type": "macro", "name": "COMBO", "gap": 50, "steps": [[key or mouse input, ...], ...]}
+ * }</pre>
+ * Keys are named like their {@link KeyEvent} constant without the
+ * {@code VK_} prefix, or {@code MOUSE1} to {@code MOUSE3} for mouse
+ * buttons. A profile may also pick how its vote windows are decided with
+ * a {@code voteStrategy}:
+ * <pre>{@code
+ * "voteStrategy": "plurality"
+ * "voteStrategy": {"type": "weighted-random"}
+ * "voteStrategy": {"type": "anarchy", "inputsPerSecond": 4}
+ * "voteStrategy": {"type": "adaptive", "targetLatency": 250, "decider": "plurality"}
+ * }</pre>
+ * Random mode picks every input equally often unless the profile gives
+ * {@code random} weights. Inputs left out of {@code weights} weigh 1, and
+ * each {@code transitions} row weighs the inputs picked after the named
+ * input, leaving out inputs that never follow it:
+ * <pre>{@code
+ * "random": {"weights": {"JUMP": 3, "CROUCH": 0.5}, "transitions": {"JUMP": {"LEFT": 1, "RIGHT": 1}},
+ *            "longChance": 0.25}
+ * }</pre>
+ * A profile is validated as a whole, so a file with any error is rejected
+ * instead of being partly applied.
+ */
+public final class ProfileReader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ProfileReader() {
+    }
+
+    /**
+     * Reads a profile file.
+     *
+     * @param path The path of the profile.
+     * @return The profile's application.
+     * @throws IOException              If the file can't be read or is not valid JSON.
+     * @throws IllegalArgumentException If the profile is invalid.
+     */
+    public static @NotNull Application read(@NotNull Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return parse(OBJECT_MAPPER.readTree(in));
+        }
+    }
+
+    /**
+     * Parses a profile.
+     *
+     * @param node The profile's JSON object.
+     * @return The profile's application.
+     * @throws IllegalArgumentException If the profile is invalid.
+     */
+    public static @NotNull Application parse(@NotNull JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("A profile must be a JSON object.");
+        }
+
+        String name = requireText(node, "name");
+        List<String> windowTitles = new ArrayList<>();
+
+        for (JsonNode title : requireArray(node, "windowTitles")) {
+            if (!title.isTextual() || title.asText().isEmpty()) {
+                throw new IllegalArgumentException("Window titles must be non-empty strings: " + name);
+            }
+            windowTitles.add(title.asText());
+        }
+
+        List<Input> inputs = new ArrayList<>();
+        for (JsonNode input : requireArray(node, "inputs")) {
+            inputs.add(parseInput(input, true));
+        }
+
+        if (windowTitles.isEmpty() || inputs.isEmpty()) {
+            throw new IllegalArgumentException("A profile needs at least one window title and one input: " + name);
+        }
+
+        JsonNode voteStrategy = node.get("voteStrategy");
+        Application application = voteStrategy == null
+                ? new Application(name, Collections.unmodifiableList(windowTitles),
+                Collections.unmodifiableList(inputs))
+                : new Application(name, Collections.unmodifiableList(windowTitles),
+                Collections.unmodifiableList(inputs), parseVoteStrategy(voteStrategy, true));
+
+        JsonNode random = node.get("random");
+
+        if (random != null) {
+            application = application.withRandomDistribution(
+                    parseRandomDistribution(random, application.getCommandIndex()));
+        }
+        return application;
+    }
+
+    /**
+     * Parses the weights random mode picks the inputs with.
+     *
+     * @param node         The random settings' JSON object.
+     * @param commandIndex The index of the profile's inputs.
+     * @return The random distribution.
+     */
+    private static @NotNull RandomDistribution parseRandomDistribution(@NotNull JsonNode node,
+                                                                       @NotNull CommandIndex commandIndex) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Random settings must be a JSON object.");
+        }
+
+        Map<String, Map<String, Double>> transitions = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> rows = node.path("transitions").fields();
+
+        while (rows.hasNext()) {
+            Map.Entry<String, JsonNode> row = rows.next();
+            transitions.put(row.getKey(), parseWeights(row.getValue()));
+        }
+
+        try {
+            return new RandomDistribution(commandIndex, parseWeights(node.path("weights")), transitions,
+                    node.path("longChance").asDouble(RandomDistribution.DEFAULT_LONG_CHANCE));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid random settings: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Parses a JSON object of input names and weights.
+     *
+     * @param node The weights' JSON object, or a missing node for no weights.
+     * @return The weights keyed by input name.
+     */
+    private static @NotNull Map<String, Double> parseWeights(@NotNull JsonNode node) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+
+            if (!field.getValue().isNumber()) {
+                throw new IllegalArgumentException("Random weights must be numbers: " + field.getKey());
+            }
+            weights.put(field.getKey(), field.getValue().asDouble());
+        }
+        return weights;
+    }
+
+    /**
+     * Parses a vote strategy, given by its type alone or as an object with its settings.
+     * The strategy is checked once here, so creating it for each pipeline can't fail.
+     *
+     * @param node          The strategy's type or JSON object.
+     * @param allowAdaptive Whether the strategy may be an adaptive window.
+     * @return Creates the strategy.
+     */
+    private static @NotNull Supplier<VoteStrategy> parseVoteStrategy(@NotNull JsonNode node, boolean allowAdaptive) {
+        String type = (node.isTextual() ? node.asText() : requireText(node, "type")).toLowerCase(Locale.ROOT);
+        Supplier<VoteStrategy> strategy;
+
+        switch (type) {
+            case "plurality":
+                strategy = PluralityStrategy::new;
+                break;
+
+            case "weighted-random":
+                strategy = WeightedRandomStrategy::new;
+                break;
+
+            case "anarchy":
+                double inputsPerSecond = node.path("inputsPerSecond").asDouble(0);
+                strategy = () -> new AnarchyStrategy(inputsPerSecond);
+                break;
+
+            case "adaptive":
+                if (!allowAdaptive) {
+                    throw new IllegalArgumentException("An adaptive strategy can't decide for another.");
+                }
+
+                Supplier<VoteStrategy> decider = node.has("decider")
+                        ? parseVoteStrategy(node.get("decider"), false) : PluralityStrategy::new;
+                long targetLatency = requireDuration(node, "targetLatency");
+                strategy = () -> new AdaptiveWindowStrategy(decider.get(), targetLatency);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown vote strategy: " + type);
+        }
+
+        strategy.get();
+        return strategy;
+    }
+
+    /**
+     * Parses a single input.
+     *
+     * @param node        The input's JSON object.
+     * @param allowMacros Whether the input may be a macro.
+     * @return The input.
+     */
+    private static @NotNull Input parseInput(@NotNull JsonNode node, boolean allowMacros) {
+        String name = requireText(node, "name");
+        String type = requireText(node, "type").toLowerCase(Locale.ROOT);
+
+        // Names are matched as whole chat tokens, so they can't contain whitespace.
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) <= ' ') {
+                throw new IllegalArgumentException("Input names can't contain whitespace: " + name);
+            }
+        }
+
+        switch (type) {
+            case "key":
+                return new KeyInput(name, parseKeyCode(requireText(node, "key")),
+                        requireDuration(node, "short"), requireDuration(node, "long"));
+
+            case "mouse":
+                try {
+                    MouseInput.Direction direction = MouseInput.Direction.valueOf(
+                            requireText(node, "direction").toUpperCase(Locale.ROOT));
+                    MouseInput.Easing easing = MouseInput.Easing.valueOf(
+                            node.path("easing").asText(MouseInput.DEFAULT_EASING.name()).toUpperCase(Locale.ROOT));
+                    return new MouseInput(name, direction, requireDuration(node, "short"),
+                            requireDuration(node, "long"), node.path("velocity").asDouble(MouseInput.DEFAULT_VELOCITY),
+                            easing);
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Invalid mouse input " + name + ": " + ex.getMessage(), ex);
+                }
+
+            case "macro":
+                if (!allowMacros) {
+                    throw new IllegalArgumentException("Macros can't contain other macros: " + name);
+                }
+
+                List<List<Input>> steps = new ArrayList<>();
+                for (JsonNode step : requireArray(node, "steps")) {
+                    List<Input> stepInputs = new ArrayList<>();
+
+                    for (JsonNode input : step.isArray() ? step : Collections.singletonList(step)) {
+                        stepInputs.add(parseInput(input, false));
+                    }
+                    steps.add(stepInputs);
+                }
+                return new MacroInput(name, steps, node.path("gap").asLong(0));
+
+            default:
+                throw new IllegalArgumentException("Unknown input type " + type + ": " + name);
+        }
+    }
+
+    /**
+     * Resolves a key name such as {@code SPACE} or {@code MOUSE1} to its key code.
+     *
+     * @param key The key name.
+     * @return The key code or mouse button mask.
+     */
+    private static int parseKeyCode(@NotNull String key) {
+        String upperKey = key.toUpperCase(Locale.ROOT);
+
+        switch (upperKey) {
+            case "MOUSE1":
+                return InputEvent.BUTTON1_DOWN_MASK;
+            case "MOUSE2":
+                return InputEvent.BUTTON2_DOWN_MASK;
+            case "MOUSE3":
+                return InputEvent.BUTTON3_DOWN_MASK;
+            default:
+                break;
+        }
+
+        try {
+            Field field = KeyEvent.class.getField(upperKey.startsWith("VK_") ? upperKey : "VK_" + upperKey);
+
+            if (field.getType() == int.class && Modifier.isStatic(field.getModifiers())) {
+                return field.getInt(null);
+            }
+        } catch (NoSuchFieldException | IllegalAccessException ignored) {
+            // Falls through to the error below.
+        }
+        throw new IllegalArgumentException("Unknown key: " + key);
+    }
+
+    private static @NotNull String requireText(@NotNull JsonNode node, @NotNull String field) {
+        JsonNode value = node.get(field);
+
+        if (value == null || !value.isTextual() || value.asText().isEmpty()) {
+            throw new IllegalArgumentException("Missing or empty field: " + field);
+        }
+        return value.asText();
+    }
+
+    private static @NotNull JsonNode requireArray(@NotNull JsonNode node, @NotNull String field) {
+        JsonNode value = node.get(field);
+
+        if (value == null || !value.isArray()) {
+            throw new IllegalArgumentException("Missing list field: " + field);
+        }
+        return value;
+    }
+
+    private static long requireDuration(@NotNull JsonNode node, @NotNull String field) {
+        JsonNode value = node.get(field);
+
+        if (value == null || !value.canConvertToLong() || value.asLong() < 0) {
+            throw new IllegalArgumentException("Missing or negative duration: " + field);
+        }
+        return value.asLong();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.profile;
+
+import lombok.Getter;
+import lombok.ToString;
+import net.foulest.chatter.util.Application;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable set of application profiles.
+ * <p>
+ * Each application's command index is built before the snapshot is
+ * published, so readers always see fully compiled profiles. A reload
+ * publishes a new snapshot instead of changing this one.
+ */
+@Getter
+@ToString
+public class ProfileSnapshot {
+
+    private final long version;
+    private final List<Application> applications;
+
+    /**
+     * Constructs a new profile snapshot.
+     *
+     * @param version      The snapshot's version, increasing with each reload.
+     * @param applications The applications in menu order.
+     */
+    public ProfileSnapshot(long version, @NotNull List<Application> applications) {
+        this.version = version;
+        this.applications = Collections.unmodifiableList(new ArrayList<>(applications));
+    }
+
+    /**
+     * Finds an application by name, ignoring case.
+     *
+     * @param name The name of the application.
+     * @return The application, or null if there is no such application.
+     */
+    public @Nullable Application find(@NotNull String name) {
+        for (Application application : applications) {
+            if (application.getName().equalsIgnoreCase(name)) {
+                return application;
+            }
+        }
+        return null;
+    }
+}
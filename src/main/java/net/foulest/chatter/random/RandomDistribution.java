@@ -0,0 +1,183 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.random;
+
+import net.foulest.chatter.input.CommandIndex;
+import net.foulest.chatter.input.InputOrdinals;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * How often random mode picks each of an application's inputs.
+ * <p>
+ * Each input has a weight, and an input can have its own row of weights
+ * for the input picked after it, so random play can follow patterns like
+ * "jump usually follows run". Weights are stored as cumulative sums so a
+ * pick is one binary search. Distributions are immutable and belong to
+ * the ordinals they were built for.
+ */
+public final class RandomDistribution {
+
+    /**
+     * The chance of a long input when none is given.
+     */
+    public static final double DEFAULT_LONG_CHANCE = 0.5;
+
+    private final InputOrdinals ordinals;
+    private final double longChance;
+
+    // Cumulative weights of the inputs picked when no transition applies
+    private final double[] weights;
+
+    // Cumulative weights of the inputs picked after each input, or null to use the base weights
+    private final double[][] transitions;
+
+    /**
+     * Constructs a new distribution.
+     *
+     * @param commandIndex The index of the inputs being picked.
+     * @param weights      The weight of each input by name; inputs left out weigh 1.
+     * @param transitions  The weights of the inputs picked after an input, by name; inputs left out of a row weigh 0.
+     * @param longChance   The chance of a long input, from 0 to 1.
+     * @throws IllegalArgumentException If an input name is unknown or a weight or chance is invalid.
+     */
+    public RandomDistribution(@NotNull CommandIndex commandIndex, @NotNull Map<String, Double> weights,
+                              @NotNull Map<String, Map<String, Double>> transitions, double longChance) {
+        if (!(longChance >= 0 && longChance <= 1)) {
+            throw new IllegalArgumentException("Long chance must be between 0 and 1: " + longChance);
+        }
+
+        ordinals = commandIndex.getOrdinals();
+        this.longChance = longChance;
+
+        double[] base = new double[ordinals.size()];
+        Arrays.fill(base, 1);
+        setWeights(commandIndex, weights, base);
+        this.weights = cumulative(base);
+
+        this.transitions = new double[ordinals.size()][];
+        for (Map.Entry<String, Map<String, Double>> row : transitions.entrySet()) {
+            double[] next = new double[ordinals.size()];
+            setWeights(commandIndex, row.getValue(), next);
+            this.transitions[ordinalOf(commandIndex, row.getKey())] = cumulative(next);
+        }
+    }
+
+    /**
+     * Creates a distribution that picks every input equally often, with even odds of a long input.
+     *
+     * @param commandIndex The index of the inputs being picked.
+     * @return The uniform distribution.
+     */
+    public static @NotNull RandomDistribution uniform(@NotNull CommandIndex commandIndex) {
+        return new RandomDistribution(commandIndex, Collections.emptyMap(), Collections.emptyMap(),
+                DEFAULT_LONG_CHANCE);
+    }
+
+    /**
+     * Gets the ordinals the distribution was built for.
+     *
+     * @return The ordinals of the inputs being picked.
+     */
+    public @NotNull InputOrdinals getOrdinals() {
+        return ordinals;
+    }
+
+    /**
+     * Gets the chance of a long input.
+     *
+     * @return The chance, from 0 to 1.
+     */
+    public double getLongChance() {
+        return longChance;
+    }
+
+    /**
+     * Picks an input.
+     *
+     * @param previous The ordinal of the input picked before, or -1 if none.
+     * @param point    A uniformly random number from 0 (inclusive) to 1 (exclusive).
+     * @return The ordinal of the picked input.
+     */
+    int pick(int previous, double point) {
+        double[] row = previous >= 0 && previous < transitions.length && transitions[previous] != null
+                ? transitions[previous] : weights;
+        double target = point * row[row.length - 1];
+
+        // Finds the first input whose cumulative weight is above the target.
+        int low = 0;
+        int high = row.length - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (row[middle] > target) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static void setWeights(@NotNull CommandIndex commandIndex, @NotNull Map<String, Double> named,
+                                   @NotNull double[] weights) {
+        for (Map.Entry<String, Double> entry : named.entrySet()) {
+            double weight = entry.getValue();
+
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight for " + entry.getKey() + ": " + weight);
+            }
+
+            weights[ordinalOf(commandIndex, entry.getKey())] = weight;
+        }
+    }
+
+    private static int ordinalOf(@NotNull CommandIndex commandIndex, @NotNull String name) {
+        int command = commandIndex.lookup(name);
+
+        if (command == CommandIndex.NO_MATCH) {
+            throw new IllegalArgumentException("Unknown input: " + name);
+        }
+        return CommandIndex.ordinalOf(command);
+    }
+
+    /**
+     * Turns weights into running sums.
+     *
+     * @param weights The weight of each input.
+     * @return The cumulative weights.
+     */
+    private static @NotNull double[] cumulative(@NotNull double[] weights) {
+        double[] sums = new double[weights.length];
+        double sum = 0;
+
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            sums[i] = sum;
+        }
+
+        if (!(sum > 0)) {
+            throw new IllegalArgumentException("At least one input needs a positive weight.");
+        }
+        return sums;
+    }
+}
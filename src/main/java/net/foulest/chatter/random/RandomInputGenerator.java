@@ -0,0 +1,73 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.random;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks random inputs from a seed, so a run can be repeated exactly.
+ * <p>
+ * The same seed and distributions always give the same inputs in the same
+ * order. The generator remembers the last input it picked to follow the
+ * distribution's transitions. It is not thread-safe.
+ */
+public class RandomInputGenerator {
+
+    /**
+     * The seed the generator started from.
+     */
+    @Getter
+    private final long seed;
+
+    private final SplittableRandom random;
+
+    // Distribution and ordinal of the last input picked
+    private RandomDistribution previousDistribution;
+    private int previous = -1;
+
+    /**
+     * Constructs a new generator.
+     *
+     * @param seed The seed to start from.
+     */
+    public RandomInputGenerator(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Picks the next input.
+     *
+     * @param distribution The distribution to pick from.
+     * @return The picked command encoded as {@code ordinal << 1 | long}, like a chat command.
+     */
+    public int next(@NotNull RandomDistribution distribution) {
+        // Transitions only apply between inputs of the same application.
+        if (distribution != previousDistribution) {
+            previousDistribution = distribution;
+            previous = -1;
+        }
+
+        previous = distribution.pick(previous, random.nextDouble());
+        boolean longInput = random.nextDouble() < distribution.getLongChance();
+        return (previous << 1) | (longInput ? 1 : 0);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * Reads a recorded chat log one message at a time.
+ * <p>
+ * Each line is either a raw IRC line as received from Twitch, or a JSON object
+ * with {@code timestamp}, {@code channel}, {@code user}, {@code user_id} and
+ * {@code message} fields. JSON lines are converted into raw PRIVMSG lines so
+ * both formats produce the same {@link IRCMessageEvent}s the live handler sees.
+ */
+public class ChatLogReader implements Closeable {
+
+    private static final String TIMESTAMP_TAG = "tmi-sent-ts=";
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The number of lines that could not be parsed.
+     */
+    @Getter
+    private long malformedLines;
+
+    // Timestamp used for lines that don't carry one
+    private long lastTimestamp;
+
+    /**
+     * Opens a chat log for reading.
+     *
+     * @param path The path of the chat log.
+     * @throws IOException If the file can't be opened.
+     */
+    public ChatLogReader(@NotNull Path path) throws IOException {
+        reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next message from the log, skipping blank and malformed lines.
+     *
+     * @return The next message, or null at the end of the log.
+     * @throws IOException If the file can't be read.
+     */
+    public @Nullable LoggedMessage next() throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            try {
+                String rawMessage = line.charAt(0) == '{' ? fromJson(line) : line;
+                long timestamp = parseTimestamp(rawMessage);
+                IRCMessageEvent event = new IRCMessageEvent(rawMessage,
+                        Collections.emptyMap(), Collections.emptyMap(), Collections.emptySet());
+                return new LoggedMessage(timestamp, event);
+            } catch (IOException | RuntimeException ex) {
+                malformedLines++;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Converts a JSON log line into a raw PRIVMSG line.
+     *
+     * @param line The JSON log line.
+     * @return The equivalent raw IRC line.
+     * @throws IOException If the line is not valid JSON.
+     */
+    private @NotNull String fromJson(@NotNull String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        String message = node.path("message").asText(null);
+
+        if (message == null) {
+            throw new IOException("Missing message field");
+        }
+
+        long timestamp = node.path("timestamp").asLong(lastTimestamp);
+        String channel = node.path("channel").asText("chatter");
+        String user = node.path("user").asText("viewer");
+        String userId = node.path("user_id").asText(null);
+
+        // Lines without a user id are left without the tag, so their votes count as unknown users' votes.
+        return "@" + TIMESTAMP_TAG + timestamp + (userId == null ? "" : ";user-id=" + userId) + ";display-name=" + user
+                + " :" + user + "!" + user + "@" + user + ".tmi.twitch.tv PRIVMSG #" + channel + " :" + message;
+    }
+
+    /**
+     * Reads the sent timestamp from a raw IRC line's tags.
+     *
+     * @param rawMessage The raw IRC line.
+     * @return The timestamp in milliseconds, or the previous timestamp if there is none.
+     */
+    private long parseTimestamp(@NotNull String rawMessage) {
+        int tagsEnd = rawMessage.indexOf(' ');
+        int start = rawMessage.indexOf(TIMESTAMP_TAG);
+
+        if (rawMessage.charAt(0) != '@' || start < 0 || start > tagsEnd) {
+            return lastTimestamp;
+        }
+
+        long timestamp = 0;
+
+        for (int i = start + TIMESTAMP_TAG.length(); i < rawMessage.length(); i++) {
+            char c = rawMessage.charAt(i);
+
+            if (c < '0' || c > '9') {
+                break;
+            }
+
+            timestamp = timestamp * 10 + (c - '0');
+        }
+
+        lastTimestamp = timestamp;
+        return timestamp;
+    }
+
+}
@@ -0,0 +1,415 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.replay;
+
+import net.foulest.chatter.actuator.InputActuator;
+import net.foulest.chatter.chat.ChatInputHandler;
+import net.foulest.chatter.input.InputOrdinals;
+import net.foulest.chatter.input.InputRequest;
+import net.foulest.chatter.journal.JournalReader;
+import net.foulest.chatter.journal.JournalRecord;
+import net.foulest.chatter.journal.JournalRecordType;
+import net.foulest.chatter.journal.SessionJournal;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.output.InputSink;
+import net.foulest.chatter.util.Application;
+import net.foulest.chatter.vote.VoteEngine;
+import net.foulest.chatter.vote.VoteSettings;
+import net.foulest.chatter.window.FixedWindowProvider;
+import net.foulest.chatter.window.FocusTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded chat log or session journal through the real input pipeline.
+ * <p>
+ * Messages go through the same {@link ChatInputHandler} used for live chat,
+ * and vote windows are closed on the log's own clock, so a replay at any
+ * speed makes the same decisions as the original stream. Windows are
+ * decided by the application's vote strategy, so strategies can be
+ * compared on the same log. The replay runs
+ * fully offline with a fixed, always-focused window.
+ */
+public class ChatReplay {
+
+    private final Application application;
+    private final InputSink sink;
+    private final long windowMillis;
+    private final double speed;
+    private final PipelineMetrics metrics;
+    private final String channel;
+
+    // Current time on the log's clock, read by the vote engine
+    private volatile long logTime;
+
+    private long wallStart;
+    private long firstTimestamp;
+    private long messages;
+    private long votes;
+    private long malformed;
+
+    private long windowStart;
+    private long windows;
+    private long maxVotesPerWindow;
+
+    // Log times of the votes in the open window
+    private long[] windowVotes = new long[64];
+    private int windowVoteCount;
+
+    private long[] latencies = new long[1024];
+    private int latencyCount;
+
+    // Journaled ballot being rebuilt, submitted once its last command has been read
+    private final int[] ballotCommands = new int[ChatInputHandler.MAX_COMMANDS_PER_MESSAGE];
+    private final int[] ballotWeights = new int[ChatInputHandler.MAX_COMMANDS_PER_MESSAGE];
+    private int ballotTokens;
+    private int ballotUser;
+    private long ballotTimestamp;
+    private boolean ballotMalformed;
+
+    /**
+     * Constructs a new chat replay.
+     *
+     * @param application  The application whose inputs are voted on.
+     * @param sink         The sink that receives the executed inputs.
+     * @param windowMillis The length of each vote window in milliseconds, unless the vote strategy sizes them.
+     * @param speed        The replay speed relative to the log, or 0 to replay as fast as possible.
+     * @param metrics      The metrics to record the replayed pipeline in.
+     */
+    public ChatReplay(@NotNull Application application, @NotNull InputSink sink, long windowMillis, double speed,
+                      @NotNull PipelineMetrics metrics) {
+        this(application, sink, windowMillis, speed, metrics, null);
+    }
+
+    /**
+     * Constructs a new chat replay that replays one channel of a session journal.
+     *
+     * @param application  The application whose inputs are voted on.
+     * @param sink         The sink that receives the executed inputs.
+     * @param windowMillis The length of each vote window in milliseconds, unless the vote strategy sizes them.
+     * @param speed        The replay speed relative to the log, or 0 to replay as fast as possible.
+     * @param metrics      The metrics to record the replayed pipeline in.
+     * @param channel      The channel whose journaled votes are replayed, or null if the journal holds only one.
+     */
+    public ChatReplay(@NotNull Application application, @NotNull InputSink sink, long windowMillis, double speed,
+                      @NotNull PipelineMetrics metrics, @Nullable String channel) {
+        this.application = application;
+        this.sink = sink;
+        this.windowMillis = windowMillis;
+        this.speed = speed;
+        this.metrics = metrics;
+        this.channel = channel;
+    }
+
+    /**
+     * Replays a chat log or a session journal.
+     * Journals are recognized by their header; their recorded votes are
+     * submitted as they were cast, ballots included, and their decisions
+     * and executions are skipped, since the replay makes its own. Only the
+     * replay's channel is replayed from a journal, which must name one if
+     * the journal holds votes from more than one channel.
+     *
+     * @param path The path of the chat log or journal.
+     * @return The report of the replay.
+     * @throws IOException If the log can't be read, or the journal's channel is ambiguous.
+     */
+    public @NotNull ReplayReport replay(@NotNull Path path) throws IOException {
+        String windowTitle = application.getWindowTitles().isEmpty()
+                ? application.getName() : application.getWindowTitles().get(0);
+        FocusTracker focusTracker = new FocusTracker(new FixedWindowProvider(windowTitle,
+                new Rectangle(0, 0, 1920, 1080)), application.getWindowTitles(), 100);
+        focusTracker.poll();
+
+        InputActuator actuator = new InputActuator(sink, focusTracker::getWindowBounds, metrics);
+        VoteEngine voteEngine = new VoteEngine(application.getCommandIndex().getOrdinals(),
+                new VoteSettings(windowMillis), application.getVoteStrategy().get(), () -> logTime,
+                request -> actuator.execute(request.getInput(), request.isLongInput()), metrics);
+
+        wallStart = System.nanoTime();
+        firstTimestamp = -1;
+
+        try {
+            if (JournalReader.isJournal(path)) {
+                replayJournal(path, voteEngine);
+            } else {
+                replayChatLog(path, voteEngine, focusTracker);
+            }
+
+            // Closes the last window at its scheduled end.
+            if (windowVoteCount > 0) {
+                logTime = windowStart + voteEngine.getWindowMillis();
+                closeWindow(voteEngine);
+            }
+        } finally {
+            actuator.shutdown();
+        }
+
+        long wallNanos = System.nanoTime() - wallStart;
+        return new ReplayReport(messages, votes, malformed, windows, maxVotesPerWindow, wallNanos,
+                Arrays.copyOf(latencies, latencyCount));
+    }
+
+    /**
+     * Replays the messages of a chat log through the chat handler.
+     *
+     * @param path         The path of the chat log.
+     * @param voteEngine   The vote engine being replayed into.
+     * @param focusTracker The tracker of the replay's fixed window.
+     * @throws IOException If the log can't be read.
+     */
+    private void replayChatLog(@NotNull Path path, @NotNull VoteEngine voteEngine,
+                               @NotNull FocusTracker focusTracker) throws IOException {
+        ChatInputHandler handler = new ChatInputHandler(application, focusTracker, voteEngine, () -> true, metrics);
+
+        try (ChatLogReader reader = new ChatLogReader(path)) {
+            LoggedMessage message;
+
+            while ((message = reader.next()) != null) {
+                long timestamp = message.getTimestamp();
+                advance(voteEngine, timestamp);
+                messages++;
+
+                if (handler.handle(message.getEvent())) {
+                    votes++;
+                    addWindowVote(timestamp);
+                }
+            }
+
+            malformed += reader.getMalformedLines();
+        }
+    }
+
+    /**
+     * Replays the votes of a session journal straight into the vote engine.
+     * Each ballot is rebuilt from its vote and the continuation votes after
+     * it, and submitted as one ballot. Ballots with a vote for an ordinal the
+     * application doesn't have are counted as malformed.
+     *
+     * @param path       The path of the journal.
+     * @param voteEngine The vote engine being replayed into.
+     * @throws IOException If the journal can't be read, or the journal's channel is ambiguous.
+     */
+    private void replayJournal(@NotNull Path path, @NotNull VoteEngine voteEngine) throws IOException {
+        InputOrdinals ordinals = application.getCommandIndex().getOrdinals();
+        int channelKey = channel == null ? onlyChannel(path) : SessionJournal.channelKey(channel.toLowerCase(Locale.ROOT));
+
+        try (JournalReader reader = new JournalReader(path)) {
+            JournalRecord record;
+
+            while ((record = reader.next()) != null) {
+                if (record.getType() != JournalRecordType.VOTE || record.getChannel() != channelKey) {
+                    continue;
+                }
+
+                if (record.isContinuation() && ballotTokens > 0 && record.getUser() == ballotUser) {
+                    addBallotVote(record, ordinals);
+                    continue;
+                }
+
+                // Submits the previous ballot before the log moves past its time.
+                submitBallot(voteEngine, ordinals);
+
+                // Starts the next ballot, or one of its own for a continuation whose ballot wasn't read.
+                long timestamp = record.getTimestamp();
+                advance(voteEngine, timestamp);
+                messages++;
+                ballotUser = record.getUser();
+                ballotTimestamp = timestamp;
+                addBallotVote(record, ordinals);
+            }
+
+            submitBallot(voteEngine, ordinals);
+            malformed += reader.getMalformedRecords();
+        }
+    }
+
+    /**
+     * Adds a journaled vote to the ballot being rebuilt.
+     *
+     * @param record   The vote record.
+     * @param ordinals The application's ordinals.
+     */
+    private void addBallotVote(@NotNull JournalRecord record, @NotNull InputOrdinals ordinals) {
+        if (record.getOrdinal() >= ordinals.size() || ballotTokens == ballotCommands.length) {
+            ballotMalformed = true;
+            return;
+        }
+
+        ballotCommands[ballotTokens] = record.getOrdinal() << 1 | (record.isLongInput() ? 1 : 0);
+        ballotWeights[ballotTokens] = Math.max(0, Math.min(record.getVotes(), 0xFFFF));
+        ballotTokens++;
+    }
+
+    /**
+     * Submits the ballot being rebuilt, if any, and starts a new one.
+     *
+     * @param voteEngine The vote engine being replayed into.
+     * @param ordinals   The application's ordinals.
+     */
+    private void submitBallot(@NotNull VoteEngine voteEngine, @NotNull InputOrdinals ordinals) {
+        if (ballotMalformed) {
+            malformed++;
+        } else if (ballotTokens > 0) {
+            long receivedNanos = System.nanoTime();
+            metrics.onReceived();
+
+            if (voteEngine.submitBallot(ordinals, ballotCommands, ballotWeights, ballotTokens, receivedNanos,
+                    ballotUser)) {
+                metrics.onQueued(receivedNanos);
+                votes++;
+                addWindowVote(ballotTimestamp);
+            }
+        }
+
+        ballotTokens = 0;
+        ballotMalformed = false;
+    }
+
+    /**
+     * Gets the key of the only channel a journal holds votes from.
+     *
+     * @param path The path of the journal.
+     * @return The channel's key, or 0 if the journal holds no votes.
+     * @throws IOException If the journal can't be read, or holds votes from more than one channel.
+     */
+    private static int onlyChannel(@NotNull Path path) throws IOException {
+        try (JournalReader reader = new JournalReader(path)) {
+            JournalRecord record;
+            Integer channelKey = null;
+
+            while ((record = reader.next()) != null) {
+                if (record.getType() != JournalRecordType.VOTE) {
+                    continue;
+                }
+
+                if (channelKey == null) {
+                    channelKey = record.getChannel();
+                } else if (channelKey != record.getChannel()) {
+                    throw new IOException("Journal " + path + " holds votes from more than one channel;"
+                            + " choose one to replay");
+                }
+            }
+            return channelKey == null ? 0 : channelKey;
+        }
+    }
+
+    /**
+     * Moves the replay up to the log time of the next message, pacing it and closing finished windows.
+     *
+     * @param voteEngine The vote engine being replayed into.
+     * @param timestamp  The log time of the next message.
+     */
+    private void advance(@NotNull VoteEngine voteEngine, long timestamp) {
+        if (firstTimestamp == -1) {
+            firstTimestamp = timestamp;
+            logTime = timestamp;
+            windowStart = timestamp;
+            voteEngine.closeWindow();
+        }
+
+        pace(wallStart, timestamp - firstTimestamp);
+        advanceTo(voteEngine, timestamp);
+    }
+
+    /**
+     * Waits until the wall clock catches up with the log at the replay speed.
+     *
+     * @param wallStart  The wall-clock time the replay started.
+     * @param logElapsed The log time elapsed since the first message in milliseconds.
+     */
+    private void pace(long wallStart, long logElapsed) {
+        if (speed <= 0) {
+            return;
+        }
+
+        long target = wallStart + (long) (logElapsed * 1_000_000 / speed);
+        long remaining;
+
+        while ((remaining = target - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Closes every window that ended before the given log time.
+     *
+     * @param voteEngine The vote engine being replayed into.
+     * @param timestamp  The log time of the next message.
+     */
+    private void advanceTo(@NotNull VoteEngine voteEngine, long timestamp) {
+        long length;
+
+        // The vote strategy may change the window length each time a window closes.
+        while (timestamp - windowStart >= (length = voteEngine.getWindowMillis())) {
+            if (windowVoteCount == 0) {
+                // Skips straight to the window containing the next message.
+                windowStart += (timestamp - windowStart) / length * length;
+                logTime = windowStart;
+                voteEngine.closeWindow();
+                break;
+            }
+
+            windowStart += length;
+            logTime = windowStart;
+            closeWindow(voteEngine);
+        }
+
+        logTime = timestamp;
+    }
+
+    /**
+     * Closes the open window at the current log time and records its statistics.
+     *
+     * @param voteEngine The vote engine being replayed into.
+     */
+    private void closeWindow(@NotNull VoteEngine voteEngine) {
+        InputRequest winner = voteEngine.closeWindow();
+
+        if (winner != null) {
+            windows++;
+            maxVotesPerWindow = Math.max(maxVotesPerWindow, voteEngine.getLastWindowVotes());
+
+            for (int i = 0; i < windowVoteCount; i++) {
+                addLatency(logTime - windowVotes[i]);
+            }
+        }
+
+        windowVoteCount = 0;
+    }
+
+    private void addWindowVote(long timestamp) {
+        if (windowVoteCount == windowVotes.length) {
+            windowVotes = Arrays.copyOf(windowVotes, windowVotes.length * 2);
+        }
+        windowVotes[windowVoteCount++] = timestamp;
+    }
+
+    private void addLatency(long latency) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = latency;
+    }
+}
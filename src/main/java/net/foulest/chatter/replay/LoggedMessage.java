@@ -0,0 +1,44 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.replay;
+
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Represents a chat message read from a recorded chat log.
+ */
+@Getter
+@ToString
+public class LoggedMessage {
+
+    private final long timestamp;
+    private final IRCMessageEvent event;
+
+    /**
+     * Constructs a new logged message.
+     *
+     * @param timestamp The time the message was sent in milliseconds.
+     * @param event     The parsed chat event.
+     */
+    public LoggedMessage(long timestamp, IRCMessageEvent event) {
+        this.timestamp = timestamp;
+        this.event = event;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.replay;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Summarizes a chat replay run.
+ */
+@Getter
+public class ReplayReport {
+
+    private final long messages;
+    private final long votes;
+    private final long malformedLines;
+    private final long windows;
+    private final long maxVotesPerWindow;
+    private final long wallNanos;
+    private final long[] decisionLatencies;
+
+    /**
+     * Constructs a new replay report.
+     *
+     * @param messages          The number of messages replayed.
+     * @param votes             The number of messages that became votes.
+     * @param malformedLines    The number of log lines that could not be parsed.
+     * @param windows           The number of windows that produced a decision.
+     * @param maxVotesPerWindow The most votes seen in a single window.
+     * @param wallNanos         The wall-clock duration of the replay.
+     * @param decisionLatencies The time from each vote to its window's decision, in log milliseconds.
+     */
+    public ReplayReport(long messages, long votes, long malformedLines, long windows,
+                        long maxVotesPerWindow, long wallNanos, @NotNull long[] decisionLatencies) {
+        this.messages = messages;
+        this.votes = votes;
+        this.malformedLines = malformedLines;
+        this.windows = windows;
+        this.maxVotesPerWindow = maxVotesPerWindow;
+        this.wallNanos = wallNanos;
+        this.decisionLatencies = decisionLatencies.clone();
+        Arrays.sort(this.decisionLatencies);
+    }
+
+    /**
+     * Gets the number of messages that were ignored or dropped.
+     *
+     * @return The number of messages that didn't become votes.
+     */
+    public long getDroppedMessages() {
+        return messages - votes + malformedLines;
+    }
+
+    /**
+     * Gets the replay's ingest rate.
+     *
+     * @return The number of messages handled per wall-clock second.
+     */
+    public double getMessagesPerSecond() {
+        return wallNanos == 0 ? 0 : messages * 1_000_000_000.0 / wallNanos;
+    }
+
+    /**
+     * Gets the average number of votes per decided window.
+     *
+     * @return The average number of votes per window.
+     */
+    public double getVotesPerWindow() {
+        return windows == 0 ? 0 : (double) votes / windows;
+    }
+
+    /**
+     * Gets a percentile of the decision latency.
+     *
+     * @param percentile The percentile to get, between 0 and 100.
+     * @return The decision latency at the percentile in milliseconds, or 0 if there were no votes.
+     */
+    public long getDecisionLatency(double percentile) {
+        if (decisionLatencies.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile / 100.0 * decisionLatencies.length) - 1;
+        return decisionLatencies[Math.max(0, Math.min(index, decisionLatencies.length - 1))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Replayed %d messages in %.2f s (%.0f msgs/s): %d votes,"
+                        + " %d dropped (%d malformed), %d windows (%.1f votes/window, max %d),"
+                        + " decision latency p50=%d ms p90=%d ms p99=%d ms max=%d ms",
+                messages, wallNanos / 1_000_000_000.0, getMessagesPerSecond(), votes,
+                getDroppedMessages(), malformedLines, windows, getVotesPerWindow(), maxVotesPerWindow,
+                getDecisionLatency(50), getDecisionLatency(90), getDecisionLatency(99), getDecisionLatency(100));
+    }
+}
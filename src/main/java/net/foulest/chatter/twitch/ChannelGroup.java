@@ -0,0 +1,127 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.twitch;
+
+import lombok.Getter;
+import lombok.ToString;
+import net.foulest.chatter.util.Application;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A set of Twitch channels whose chats vote together on one application.
+ * <p>
+ * Each channel's votes count as its weight, so a co-stream can give the
+ * main channel more say than its guests. The first channel is the group's
+ * primary channel, where the bot must be verified as the broadcaster.
+ */
+@Getter
+@ToString
+public class ChannelGroup {
+
+    private final Application application;
+    private final Map<String, Integer> channelWeights;
+    private final boolean autoSelect;
+
+    /**
+     * Constructs a new channel group.
+     *
+     * @param application    The application the channels vote on.
+     * @param channelWeights The weight of each channel's votes, keyed by channel name, primary channel first.
+     */
+    public ChannelGroup(@NotNull Application application, @NotNull Map<String, Integer> channelWeights) {
+        this(application, channelWeights, false);
+    }
+
+    /**
+     * Constructs a new channel group that may follow the foreground window.
+     *
+     * @param application    The application the channels vote on, or start with if the application is selected
+     *                       automatically.
+     * @param channelWeights The weight of each channel's votes, keyed by channel name, primary channel first.
+     * @param autoSelect     Whether the application switches to whichever application's window is in focus.
+     */
+    public ChannelGroup(@NotNull Application application, @NotNull Map<String, Integer> channelWeights,
+                        boolean autoSelect) {
+        if (channelWeights.isEmpty()) {
+            throw new IllegalArgumentException("A channel group needs at least one channel.");
+        }
+
+        this.application = application;
+        this.channelWeights = Collections.unmodifiableMap(new LinkedHashMap<>(channelWeights));
+        this.autoSelect = autoSelect;
+    }
+
+    /**
+     * Gets the channel where the bot must be verified as the broadcaster.
+     *
+     * @return The primary channel's name.
+     */
+    public @NotNull String getPrimaryChannel() {
+        return channelWeights.keySet().iterator().next();
+    }
+
+    /**
+     * Parses a list of channels such as {@code alice, bob:2}.
+     * <p>
+     * Channels are separated by commas and may end with a colon and a
+     * positive weight; channels without one have a weight of 1.
+     *
+     * @param spec The list of channels to parse.
+     * @return The weight of each channel keyed by its lowercase name, in order.
+     * @throws IllegalArgumentException If a channel name or weight is invalid.
+     */
+    public static @NotNull Map<String, Integer> parseChannels(@NotNull String spec) {
+        Map<String, Integer> channelWeights = new LinkedHashMap<>();
+
+        for (String entry : spec.split(",")) {
+            String channel = entry.trim();
+            int weight = 1;
+            int colon = channel.indexOf(':');
+
+            if (colon != -1) {
+                try {
+                    weight = Integer.parseInt(channel.substring(colon + 1).trim());
+                } catch (NumberFormatException ex) {
+                    weight = 0;
+                }
+
+                channel = channel.substring(0, colon).trim();
+
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Invalid weight for channel '" + channel
+                            + "'. It must be a positive whole number.");
+                }
+            }
+
+            // Validates the channel username.
+            if (channel.length() > 25 || channel.length() < 4 || channel.matches(".*\\W.*")) {
+                throw new IllegalArgumentException("Invalid channel username '" + channel + "'."
+                        + " It must be between 4 and 25 characters"
+                        + " and only contain letters, numbers, and underscores.");
+            }
+
+            channelWeights.put(channel.toLowerCase(Locale.ROOT), weight);
+        }
+        return channelWeights;
+    }
+}
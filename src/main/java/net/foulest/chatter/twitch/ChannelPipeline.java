@@ -0,0 +1,332 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.twitch;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.actuator.AxisPolicy;
+import net.foulest.chatter.actuator.InputActuator;
+import net.foulest.chatter.chat.ChatInputHandler;
+import net.foulest.chatter.input.InputRequest;
+import net.foulest.chatter.journal.JournalRecordType;
+import net.foulest.chatter.journal.SessionJournal;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import net.foulest.chatter.output.InputSink;
+import net.foulest.chatter.profile.ProfileSnapshot;
+import net.foulest.chatter.util.Application;
+import net.foulest.chatter.vote.VoteEngine;
+import net.foulest.chatter.vote.VoteSettings;
+import net.foulest.chatter.window.FocusTracker;
+import net.foulest.chatter.window.TitleMatcher;
+import net.foulest.chatter.window.WindowProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The input pipeline of one channel group.
+ * <p>
+ * Every group has its own focus tracker, vote engine and actuator, so
+ * groups playing different applications never share a lock or a window.
+ * Only the input sink and the metrics are shared between groups.
+ * <p>
+ * The group's application can be swapped while the pipeline runs, such
+ * as when its profile is reloaded. Chat handlers read the application
+ * through a volatile field, so the swap never blocks the chat path.
+ * A group can also follow the foreground window, switching to whichever
+ * application's window is in focus.
+ * <p>
+ * While the chat connection is briefly down, decided inputs are held
+ * instead of executed. They are executed once the connection is live
+ * again, unless they have gone stale in the meantime.
+ */
+@Getter
+@Slf4j(topic = "Chatter")
+public class ChannelPipeline {
+
+    // Most inputs held while the connection is down; older ones are dropped first
+    private static final int MAX_HELD_INPUTS = 8;
+
+    // How old a held input may be and still be executed in milliseconds
+    private static final long HELD_INPUT_MILLIS = 5000;
+
+    private final ChannelGroup group;
+    private final FocusTracker focusTracker;
+    private final InputActuator actuator;
+    private final VoteEngine voteEngine;
+    private final PipelineMetrics metrics;
+
+    // The application currently voted on
+    private volatile Application application;
+
+    // Whether the application follows the foreground window
+    private volatile boolean autoSelect;
+
+    // Whether the bot is verified as the broadcaster of the primary channel
+    @Setter
+    private volatile boolean broadcaster;
+
+    // Inputs decided while the connection was down, oldest first
+    @Getter(AccessLevel.NONE)
+    private final Deque<InputRequest> heldInputs = new ArrayDeque<>();
+
+    // Whether decided inputs are held instead of executed
+    @Getter(AccessLevel.NONE)
+    private volatile boolean holding;
+
+    // Journal the group's votes, decisions and executions are recorded in, or null
+    private volatile SessionJournal journal;
+
+    // Key the primary channel's records are journaled under
+    @Getter(AccessLevel.NONE)
+    private final int channelKey;
+
+    /**
+     * Constructs a new channel pipeline.
+     *
+     * @param group           The channel group whose votes the pipeline handles.
+     * @param windowProvider  The provider to poll the foreground window with; not shared with other pipelines.
+     * @param sink            The sink that receives the executed inputs.
+     * @param voteSettings    How the group's vote windows are sized, filled and counted.
+     * @param focusPollMillis How often the foreground window is polled in milliseconds.
+     * @param metrics         The metrics to record the pipeline in.
+     */
+    public ChannelPipeline(@NotNull ChannelGroup group, @NotNull WindowProvider windowProvider,
+                           @NotNull InputSink sink, @NotNull VoteSettings voteSettings, long focusPollMillis,
+                           @NotNull PipelineMetrics metrics) {
+        this(group, windowProvider, sink, voteSettings, focusPollMillis, InputActuator.DEFAULT_AXIS_POLICY, metrics);
+    }
+
+    /**
+     * Constructs a new channel pipeline with a policy for opposite keys.
+     *
+     * @param group           The channel group whose votes the pipeline handles.
+     * @param windowProvider  The provider to poll the foreground window with; not shared with other pipelines.
+     * @param sink            The sink that receives the executed inputs.
+     * @param voteSettings    How the group's vote windows are sized, filled and counted.
+     * @param focusPollMillis How often the foreground window is polled in milliseconds.
+     * @param axisPolicy      What to do when a key is pressed while the opposite key is held.
+     * @param metrics         The metrics to record the pipeline in.
+     */
+    public ChannelPipeline(@NotNull ChannelGroup group, @NotNull WindowProvider windowProvider,
+                           @NotNull InputSink sink, @NotNull VoteSettings voteSettings, long focusPollMillis,
+                           @NotNull AxisPolicy axisPolicy, @NotNull PipelineMetrics metrics) {
+        application = group.getApplication();
+        this.group = group;
+        channelKey = SessionJournal.channelKey(group.getPrimaryChannel());
+        this.metrics = metrics;
+        focusTracker = new FocusTracker(windowProvider, application.getWindowTitles(), focusPollMillis);
+        actuator = new InputActuator(sink, focusTracker::getWindowBounds, metrics, axisPolicy);
+        voteEngine = new VoteEngine(application.getCommandIndex().getOrdinals(), voteSettings,
+                application.getVoteStrategy().get(), System::currentTimeMillis, this::decideInput, metrics);
+    }
+
+    /**
+     * Starts tracking focus and closing vote windows.
+     */
+    public void start() {
+        focusTracker.start();
+        voteEngine.start();
+    }
+
+    /**
+     * Stops the pipeline's threads.
+     */
+    public void stop() {
+        voteEngine.stop();
+        focusTracker.stop();
+        actuator.shutdown();
+    }
+
+    /**
+     * Records the group's votes, decisions and executions in a session journal.
+     * Call this before creating the group's handlers.
+     *
+     * @param journal The journal to record in, or null to stop recording.
+     */
+    public void setJournal(@Nullable SessionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Creates a chat handler for each of the group's channels.
+     *
+     * @return The handlers keyed by channel name.
+     */
+    public @NotNull Map<String, ChatInputHandler> createHandlers() {
+        Map<String, ChatInputHandler> handlers = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Integer> entry : group.getChannelWeights().entrySet()) {
+            ChatInputHandler handler = new ChatInputHandler(this::getApplication, focusTracker,
+                    voteEngine, this::isBroadcaster, metrics, entry.getValue());
+            handler.setJournal(journal, entry.getKey());
+            handlers.put(entry.getKey(), handler);
+        }
+        return handlers;
+    }
+
+    /**
+     * Switches to a new version of the group's application, such as after a profile reload.
+     * Votes already cast for the old version are still counted in the open window.
+     *
+     * @param updated The new version of the application.
+     */
+    public void setApplication(@NotNull Application updated) {
+        voteEngine.setOrdinals(updated.getCommandIndex().getOrdinals());
+
+        // Keeps the running strategy, and whatever it has measured, unless the application's differs.
+        if (updated.getVoteStrategy() != application.getVoteStrategy()) {
+            voteEngine.setStrategy(updated.getVoteStrategy().get());
+        }
+
+        if (!autoSelect) {
+            focusTracker.setWindowTitles(updated.getWindowTitles());
+        }
+
+        application = updated;
+        log.info("Switched {} to the {} profile", group.getPrimaryChannel(), updated.getName());
+    }
+
+    /**
+     * Switches the application to whichever application's window is in focus.
+     * The window titles of every application are matched at once on each focus poll.
+     *
+     * @param snapshot The applications to choose from.
+     */
+    public void selectAutomatically(@NotNull ProfileSnapshot snapshot) {
+        autoSelect = true;
+
+        focusTracker.setMatchListener(owner -> {
+            if (owner instanceof Application && owner != application) {
+                setApplication((Application) owner);
+            }
+        });
+
+        focusTracker.setMatcher(new TitleMatcher<>(snapshot.getApplications(), Application::getWindowTitles));
+    }
+
+    /**
+     * Picks up the group's application from a reloaded set of profiles.
+     *
+     * @param snapshot The reloaded profiles.
+     */
+    public void onProfilesChanged(@NotNull ProfileSnapshot snapshot) {
+        if (autoSelect) {
+            focusTracker.setMatcher(new TitleMatcher<>(snapshot.getApplications(), Application::getWindowTitles));
+        }
+
+        Application updated = snapshot.find(application.getName());
+
+        if (updated != null && updated != application) {
+            setApplication(updated);
+        }
+    }
+
+    /**
+     * Holds or releases decided inputs as the chat connection drops and recovers.
+     *
+     * @param state The new state of the connection.
+     */
+    public void onConnectionStateChanged(@NotNull ConnectionState state) {
+        List<InputRequest> released = new ArrayList<>();
+
+        synchronized (heldInputs) {
+            holding = state.isInterrupted();
+
+            if (holding) {
+                return;
+            }
+
+            // Only inputs decided during a brief drop are still worth executing once it is over.
+            if (state == ConnectionState.LIVE) {
+                long now = System.currentTimeMillis();
+
+                for (InputRequest request : heldInputs) {
+                    if (now - request.getTimestamp() <= HELD_INPUT_MILLIS) {
+                        released.add(request);
+                    }
+                }
+            }
+
+            if (heldInputs.size() > released.size()) {
+                log.info("Dropped {} stale input(s) for {}", heldInputs.size() - released.size(),
+                        group.getPrimaryChannel());
+            }
+
+            heldInputs.clear();
+        }
+
+        released.forEach(this::executeInput);
+    }
+
+    /**
+     * Executes the winning input of a vote window, or holds it while the connection is down.
+     *
+     * @param request The winning input request.
+     */
+    private void decideInput(@NotNull InputRequest request) {
+        record(JournalRecordType.DECISION, request);
+
+        if (holding) {
+            synchronized (heldInputs) {
+                if (holding) {
+                    if (heldInputs.size() == MAX_HELD_INPUTS) {
+                        heldInputs.poll();
+                    }
+
+                    heldInputs.add(request);
+                    return;
+                }
+            }
+        }
+
+        executeInput(request);
+    }
+
+    /**
+     * Executes the winning input of a vote window.
+     *
+     * @param request The winning input request.
+     */
+    private void executeInput(@NotNull InputRequest request) {
+        boolean isLongInput = request.isLongInput();
+        log.info("Processing input: {} ({}) for {}", request.getInput().getInputName(),
+                isLongInput ? "long" : "short", group.getPrimaryChannel());
+
+        record(JournalRecordType.EXECUTION, request);
+        actuator.execute(request.getInput(), isLongInput);
+    }
+
+    /**
+     * Records a decided or executed input in the journal, if there is one.
+     *
+     * @param type    What the record describes.
+     * @param request The input request.
+     */
+    private void record(@NotNull JournalRecordType type, @NotNull InputRequest request) {
+        SessionJournal current = journal;
+
+        if (current != null) {
+            // Records the ordinal the input was decided with, even if the profile has changed since.
+            current.record(type, channelKey, 0, 0, request.getOrdinal(), request.isLongInput());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.twitch;
+
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import net.foulest.chatter.chat.ChatInputHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Routes chat events from one Twitch connection to each channel's handler.
+ * <p>
+ * The routing table is built once and only read afterwards, so events
+ * from different channels never contend with each other here.
+ */
+public class ChannelRouter implements Consumer<IRCMessageEvent> {
+
+    private final Map<String, ChatInputHandler> handlers = new HashMap<>();
+
+    /**
+     * Constructs a new channel router.
+     *
+     * @param pipelines The pipelines to route each group's channels to.
+     */
+    public ChannelRouter(@NotNull Collection<ChannelPipeline> pipelines) {
+        for (ChannelPipeline pipeline : pipelines) {
+            Map<String, ChatInputHandler> groupHandlers = pipeline.createHandlers();
+
+            for (String channel : groupHandlers.keySet()) {
+                if (handlers.containsKey(channel)) {
+                    throw new IllegalArgumentException("Channel '" + channel + "' is in more than one group.");
+                }
+            }
+
+            handlers.putAll(groupHandlers);
+        }
+    }
+
+    /**
+     * Routes a chat event to its channel's handler.
+     * Events from channels that aren't routed, and events without a channel, are ignored.
+     *
+     * @param event The chat event to route.
+     */
+    @Override
+    public void accept(@NotNull IRCMessageEvent event) {
+        Optional<String> channel = event.getChannelName();
+
+        if (!channel.isPresent()) {
+            return;
+        }
+
+        ChatInputHandler handler = handlers.get(channel.get());
+
+        if (handler != null) {
+            handler.handle(event);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.twitch;
+
+import com.github.twitch4j.chat.TwitchChat;
+import com.github.twitch4j.chat.events.channel.IRCMessageEvent;
+import com.github.twitch4j.chat.events.channel.UserStateEvent;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the chat connection through its lifecycle and recovers it when it drops.
+ * <p>
+ * The connection moves from {@link ConnectionState#CONNECTING} through
+ * {@link ConnectionState#VERIFYING} to {@link ConnectionState#LIVE} as the
+ * server welcomes the bot and confirms it is the broadcaster of every
+ * group's primary channel. Every chat event counts as a sign of life; once
+ * the server has been quiet for a while it is pinged, the connection is
+ * {@link ConnectionState#DEGRADED} while the ping goes unanswered, and it
+ * is reconnected if the server stays quiet. Reconnects back off
+ * exponentially so an outage isn't met with a flood of attempts.
+ * <p>
+ * State changes are driven by the chat events passed in and by
+ * {@link #check()}, which runs on a dedicated thread once started. The
+ * clock is injected, so the state machine can be driven against a local
+ * stand-in chat server without waiting on real time.
+ */
+@Slf4j(topic = "Chatter")
+public class ConnectionLifecycle {
+
+    // How often the connection is checked in milliseconds
+    private static final long CHECK_MILLIS = 1000;
+
+    // How long the server may be quiet before it is pinged
+    private static final long PING_AFTER_MILLIS = 30000;
+
+    // How long the server may be quiet before the connection counts as degraded
+    private static final long DEGRADED_AFTER_MILLIS = 40000;
+
+    // How long the server may be quiet before the connection is dropped and reconnected
+    private static final long DROPPED_AFTER_MILLIS = 60000;
+
+    // How long to wait for a connection attempt before trying again
+    private static final long CONNECT_TIMEOUT_MILLIS = 10000;
+
+    // How long the first connection may take to come up before startup fails
+    private static final long FIRST_CONNECT_TIMEOUT_MILLIS = 120000;
+
+    // First and longest wait between reconnect attempts
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private final TwitchChat chat;
+    private final Map<String, ChannelPipeline> pipelinesByPrimary;
+    private final boolean assumeBroadcaster;
+    private final long verifyTimeoutMillis;
+    private final LongSupplier clock;
+    private final List<Consumer<ConnectionState>> listeners = new CopyOnWriteArrayList<>();
+
+    // Primary channels where the bot has been confirmed as the broadcaster
+    private final Set<String> verified = new HashSet<>();
+
+    /**
+     * Completes once the connection first goes live, or fails if it can't be
+     * made in time or the broadcaster can't be verified.
+     */
+    @Getter
+    private final CompletableFuture<Void> live = new CompletableFuture<>();
+
+    /**
+     * The current state of the connection.
+     */
+    @Getter
+    private volatile ConnectionState state = ConnectionState.CONNECTING;
+
+    // When the lifecycle was created, when the state last changed, when the server was last heard from,
+    // and when to next try to connect
+    private final long createdAt;
+    private long stateSince;
+    private volatile long lastHeard;
+    private long nextAttempt;
+
+    // Number of reconnect attempts since the connection was last up
+    private int attempts;
+
+    // Whether the server was pinged during the current quiet period
+    private volatile boolean pinged;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new connection lifecycle.
+     *
+     * @param chat                The chat connection to track.
+     * @param pipelines           The pipelines whose primary channels must be verified.
+     * @param assumeBroadcaster   Whether the bot is trusted to be the broadcaster until Twitch says otherwise.
+     * @param verifyTimeoutMillis How long to wait for the broadcaster to be verified in milliseconds.
+     * @param clock               The monotonic clock to time the connection with, in milliseconds.
+     */
+    public ConnectionLifecycle(@NotNull TwitchChat chat, @NotNull Collection<ChannelPipeline> pipelines,
+                               boolean assumeBroadcaster, long verifyTimeoutMillis, @NotNull LongSupplier clock) {
+        this.chat = chat;
+        this.assumeBroadcaster = assumeBroadcaster;
+        this.verifyTimeoutMillis = verifyTimeoutMillis;
+        this.clock = clock;
+
+        Map<String, ChannelPipeline> byPrimary = new HashMap<>();
+        for (ChannelPipeline pipeline : pipelines) {
+            byPrimary.put(pipeline.getGroup().getPrimaryChannel(), pipeline);
+
+            if (assumeBroadcaster) {
+                pipeline.setBroadcaster(true);
+            }
+        }
+        pipelinesByPrimary = Collections.unmodifiableMap(byPrimary);
+
+        long now = clock.getAsLong();
+        createdAt = now;
+        stateSince = now;
+        lastHeard = now;
+        nextAttempt = now + CONNECT_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Adds a listener that is called with each new state.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(@NotNull Consumer<ConnectionState> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts checking the connection on a dedicated thread.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = ChatterThreads.newScheduler("Chatter-Connection");
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                check();
+            } catch (RuntimeException ex) {
+                log.error("Failed to check the chat connection.", ex);
+            }
+        }, CHECK_MILLIS, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checking the connection and closes it.
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        transition(ConnectionState.CLOSED);
+        chat.close();
+    }
+
+    /**
+     * Handles a chat event, which shows that the connection is up.
+     *
+     * @param event The chat event.
+     */
+    public void onMessage(@NotNull IRCMessageEvent event) {
+        lastHeard = clock.getAsLong();
+
+        // The rest only matters while the connection is recovering, or when the server is about to
+        // drop a live connection, so the chat path stays lock-free.
+        ConnectionState current = state;
+        boolean reconnect = "RECONNECT".equals(event.getCommandType());
+
+        if (current == ConnectionState.LIVE && !pinged && !reconnect) {
+            return;
+        }
+
+        synchronized (this) {
+            pinged = false;
+
+            if (reconnect) {
+                // The server is about to drop the connection; the chat client reconnects on its own.
+                log.warn("The chat server asked to reconnect.");
+                reconnecting(false);
+            } else if (state == ConnectionState.CONNECTING || state == ConnectionState.RECONNECTING) {
+                connected();
+            } else if (state == ConnectionState.DEGRADED) {
+                log.info("The chat connection recovered.");
+                transition(ConnectionState.LIVE);
+            }
+        }
+    }
+
+    /**
+     * Handles the bot's role in a channel.
+     * A channel where the bot turns out not to be the broadcaster is ignored from then on.
+     *
+     * @param event The user state event.
+     */
+    public synchronized void onUserState(@NotNull UserStateEvent event) {
+        String channel = event.getChannel().getName();
+        ChannelPipeline pipeline = pipelinesByPrimary.get(channel);
+
+        if (pipeline == null) {
+            return;
+        }
+
+        if (event.isBroadcaster()) {
+            pipeline.setBroadcaster(true);
+            verified.add(channel);
+
+            if (state == ConnectionState.VERIFYING && verified.size() == pipelinesByPrimary.size()) {
+                log.info("Broadcaster status verified.");
+                transition(ConnectionState.LIVE);
+            }
+        } else if (pipeline.isBroadcaster()) {
+            pipeline.setBroadcaster(false);
+            log.error("Not the broadcaster of {}. Its chat will be ignored.", channel);
+        }
+    }
+
+    /**
+     * Checks the connection's timers, pinging, degrading or reconnecting it as needed.
+     * <p>
+     * The next step is decided under the lock, but the ping or reconnect
+     * itself runs after releasing it, so chat events aren't held up while
+     * the chat client reconnects.
+     */
+    public void check() {
+        Runnable action;
+
+        synchronized (this) {
+            action = nextAction();
+        }
+
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Advances the state machine by the connection's timers.
+     *
+     * @return The ping or reconnect to run once the lock is released, or null if there is none.
+     */
+    private @Nullable Runnable nextAction() {
+        long now = clock.getAsLong();
+        long quiet = now - lastHeard;
+
+        switch (state) {
+            case CONNECTING:
+            case RECONNECTING:
+                if (!live.isDone() && now - createdAt > FIRST_CONNECT_TIMEOUT_MILLIS) {
+                    live.completeExceptionally(new TimeoutException(
+                            "Failed to connect to chat within the timeout period."));
+                }
+
+                if (now >= nextAttempt) {
+                    attempts++;
+                    long backoff = backoffMillis(attempts);
+                    nextAttempt = now + CONNECT_TIMEOUT_MILLIS + backoff;
+                    log.warn("Reconnecting to chat (attempt {}, next in {} ms)...", attempts,
+                            CONNECT_TIMEOUT_MILLIS + backoff);
+                    return chat::reconnect;
+                }
+                break;
+
+            case VERIFYING:
+                if (now - stateSince > verifyTimeoutMillis) {
+                    live.completeExceptionally(new TimeoutException(
+                            "Failed to verify broadcaster status within the timeout period."));
+                }
+                break;
+
+            case LIVE:
+                if (quiet > DEGRADED_AFTER_MILLIS) {
+                    log.warn("The chat server has been quiet for {} ms.", quiet);
+                    transition(ConnectionState.DEGRADED);
+                } else if (quiet > PING_AFTER_MILLIS && !pinged) {
+                    pinged = true;
+                    return () -> chat.sendRaw("PING :tmi.twitch.tv");
+                }
+                break;
+
+            case DEGRADED:
+                if (quiet > DROPPED_AFTER_MILLIS) {
+                    log.warn("Lost the chat connection.");
+                    reconnecting(true);
+                    return nextAction();
+                }
+                break;
+
+            default:
+                break;
+        }
+        return null;
+    }
+
+    /**
+     * Marks the connection as up once the server is heard from.
+     */
+    private void connected() {
+        attempts = 0;
+        pinged = false;
+
+        if (live.isDone() || assumeBroadcaster || verified.size() == pipelinesByPrimary.size()) {
+            // The bot's role doesn't change across reconnects, so it is only verified once.
+            log.info("Connected to chat.");
+            transition(ConnectionState.LIVE);
+        } else {
+            log.info("Connected to chat. Attempting to verify broadcaster status...");
+            transition(ConnectionState.VERIFYING);
+        }
+    }
+
+    /**
+     * Marks the connection as down.
+     *
+     * @param now Whether to reconnect right away instead of waiting for the chat client to reconnect on its own.
+     */
+    private void reconnecting(boolean now) {
+        nextAttempt = now ? clock.getAsLong() : clock.getAsLong() + CONNECT_TIMEOUT_MILLIS;
+        transition(ConnectionState.RECONNECTING);
+    }
+
+    /**
+     * Moves to a new state and tells the listeners.
+     *
+     * @param next The new state.
+     */
+    private void transition(@NotNull ConnectionState next) {
+        if (state == next || state == ConnectionState.CLOSED) {
+            return;
+        }
+
+        state = next;
+        stateSince = clock.getAsLong();
+
+        if (next == ConnectionState.LIVE) {
+            live.complete(null);
+        }
+
+        for (Consumer<ConnectionState> listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException ex) {
+                log.error("Failed to handle the chat connection state.", ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the wait before a reconnect attempt, doubling with each attempt up to a limit.
+     * A random jitter of up to a fifth keeps several bots from reconnecting in lockstep.
+     *
+     * @param attempt The attempt number, starting at 1.
+     * @return The wait in milliseconds.
+     */
+    private static long backoffMillis(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+}
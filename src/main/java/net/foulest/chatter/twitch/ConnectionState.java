@@ -0,0 +1,65 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.twitch;
+
+/**
+ * The state of the chat connection.
+ */
+public enum ConnectionState {
+
+    /**
+     * Waiting for the first connection to the chat server.
+     */
+    CONNECTING,
+
+    /**
+     * Connected, but waiting for Twitch to confirm that the bot is the broadcaster.
+     */
+    VERIFYING,
+
+    /**
+     * Connected and verified; chat is handled and inputs are executed.
+     */
+    LIVE,
+
+    /**
+     * Connected, but the server has gone quiet and hasn't answered a ping yet.
+     * Decided inputs are held until the connection recovers.
+     */
+    DEGRADED,
+
+    /**
+     * The connection was lost and is being re-established.
+     * Decided inputs are held until the connection recovers.
+     */
+    RECONNECTING,
+
+    /**
+     * The connection was closed for good.
+     */
+    CLOSED;
+
+    /**
+     * Checks whether inputs decided in this state should be held instead of executed.
+     *
+     * @return Whether the connection is briefly down.
+     */
+    public boolean isInterrupted() {
+        return this == DEGRADED || this == RECONNECTING;
+    }
+}
@@ -18,23 +18,42 @@
 package net.foulest.chatter.util;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.ToString;
+import net.foulest.chatter.input.CommandIndex;
 import net.foulest.chatter.input.Input;
+import net.foulest.chatter.input.InputOrdinals;
+import net.foulest.chatter.random.RandomDistribution;
+import net.foulest.chatter.vote.PluralityStrategy;
+import net.foulest.chatter.vote.VoteStrategy;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Represents an application that Chatter can interact with.
+ * <p>
+ * Applications are immutable once built, so a profile snapshot can share
+ * them with the chat and random mode threads without locking.
  */
 @Getter
-@Setter
 @ToString
 public class Application {
 
-    private String name;
-    private List<String> windowTitles;
-    private List<Input> inputs;
+    private final String name;
+    private final List<String> windowTitles;
+    private final List<Input> inputs;
+
+    @ToString.Exclude
+    private final CommandIndex commandIndex;
+
+    // Creates the strategy each pipeline decides its vote windows with
+    @ToString.Exclude
+    private final Supplier<VoteStrategy> voteStrategy;
+
+    // How random mode picks the inputs
+    @ToString.Exclude
+    private final RandomDistribution randomDistribution;
 
     /**
      * Constructs a new application.
@@ -44,8 +63,54 @@ public class Application {
      * @param windowTitles The window titles of the application.
      */
     public Application(String name, List<String> windowTitles, List<Input> inputs) {
+        this(name, windowTitles, inputs, PluralityStrategy::new);
+    }
+
+    /**
+     * Constructs a new application with its own vote strategy.
+     *
+     * @param name The name of the application.
+     * @param windowTitles The window titles of the application.
+     * @param inputs The inputs of the application.
+     * @param voteStrategy Creates the strategy each pipeline decides its vote windows with.
+     */
+    public Application(String name, List<String> windowTitles, List<Input> inputs,
+                       Supplier<VoteStrategy> voteStrategy) {
         this.name = name;
-        this.inputs = inputs;
         this.windowTitles = windowTitles;
+        this.inputs = inputs;
+        this.voteStrategy = voteStrategy;
+        commandIndex = new CommandIndex(new InputOrdinals(inputs));
+        randomDistribution = RandomDistribution.uniform(commandIndex);
+    }
+
+    /**
+     * Constructs a copy of an application that random mode picks inputs for differently.
+     *
+     * @param application        The application to copy.
+     * @param randomDistribution How random mode picks the inputs.
+     */
+    private Application(Application application, RandomDistribution randomDistribution) {
+        name = application.name;
+        windowTitles = application.windowTitles;
+        inputs = application.inputs;
+        voteStrategy = application.voteStrategy;
+        commandIndex = application.commandIndex;
+        this.randomDistribution = randomDistribution;
+    }
+
+    /**
+     * Gets a copy of this application that random mode picks inputs for with a distribution.
+     *
+     * @param randomDistribution How random mode picks the inputs, built from this application's command index.
+     * @return The copy of this application.
+     * @throws IllegalArgumentException If the distribution was built for other inputs.
+     */
+    public @NotNull Application withRandomDistribution(@NotNull RandomDistribution randomDistribution) {
+        if (randomDistribution.getOrdinals() != commandIndex.getOrdinals()) {
+            throw new IllegalArgumentException("The random distribution was built for other inputs than "
+                    + name + "'s.");
+        }
+        return new Application(this, randomDistribution);
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Sizes each window to the measured vote rate, keeping decision latency near a target.
+ * <p>
+ * A window should hold enough votes to show what chat wants, but a vote
+ * waits half a window on average before it is executed. This strategy
+ * tracks the vote rate and opens windows just long enough to collect a
+ * target number of votes, never longer than twice the target latency.
+ * Busy chats get short windows and more inputs per second; quiet chats
+ * get windows at the latency limit. Another strategy decides each window.
+ */
+public class AdaptiveWindowStrategy implements VoteStrategy {
+
+    // Votes a window should collect before it closes
+    private static final double TARGET_VOTES = 10;
+
+    // Shortest window, so busy chats don't decide faster than inputs can be executed
+    private static final long MIN_WINDOW_MILLIS = 50;
+
+    // Weight of the newest window in the measured vote rate
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private final VoteStrategy decider;
+    private final long maxWindowMillis;
+
+    // Smoothed votes per second, or -1 before the first window
+    private double rate = -1;
+
+    /**
+     * Constructs a new adaptive window strategy.
+     *
+     * @param decider             The strategy that decides each window.
+     * @param targetLatencyMillis The mean time a vote should wait before it is executed, in milliseconds.
+     */
+    public AdaptiveWindowStrategy(@NotNull VoteStrategy decider, long targetLatencyMillis) {
+        if (targetLatencyMillis * 2 < MIN_WINDOW_MILLIS) {
+            throw new IllegalArgumentException("Target latency must be at least "
+                    + MIN_WINDOW_MILLIS / 2 + " ms: " + targetLatencyMillis);
+        }
+
+        this.decider = decider;
+        maxWindowMillis = targetLatencyMillis * 2;
+    }
+
+    @Override
+    public void decide(@NotNull VoteCounts counts, @NotNull IntConsumer decisions) {
+        decider.decide(counts, decisions);
+    }
+
+    @Override
+    public long nextWindowMillis(long windowMillis, @NotNull VoteCounts counts) {
+        // Ignores windows too short to measure, such as ones closed early.
+        if (counts.getWindowNanos() > 0) {
+            double windowRate = counts.getCounted() * 1_000_000_000.0 / counts.getWindowNanos();
+            rate = rate < 0 ? windowRate : rate + RATE_SMOOTHING * (windowRate - rate);
+        }
+
+        if (rate <= 0) {
+            return maxWindowMillis;
+        }
+
+        long target = (long) (TARGET_VOTES * 1000 / rate);
+        return Math.max(MIN_WINDOW_MILLIS, Math.min(maxWindowMillis, target));
+    }
+
+    @Override
+    public void seed(long seed) {
+        decider.seed(seed);
+    }
+}
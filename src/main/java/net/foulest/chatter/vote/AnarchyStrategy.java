@@ -0,0 +1,67 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Executes every vote, throttled to a number of inputs per second.
+ * <p>
+ * Each window earns time-based credit for as many inputs as the rate
+ * allows, up to one second's worth. If the window has more votes than
+ * credit, votes spread evenly through the window are executed, so the
+ * whole window is represented rather than only its earliest votes. Votes
+ * are executed in the order they arrived. Votes counted past the
+ * window's buffer have no order and are not executed.
+ */
+public class AnarchyStrategy implements VoteStrategy {
+
+    private final double inputsPerSecond;
+
+    // Inputs the strategy may still execute, carried between windows
+    private double credit;
+
+    /**
+     * Constructs a new anarchy strategy.
+     *
+     * @param inputsPerSecond The most inputs to execute per second.
+     */
+    public AnarchyStrategy(double inputsPerSecond) {
+        if (!(inputsPerSecond > 0)) {
+            throw new IllegalArgumentException("Inputs per second must be positive: " + inputsPerSecond);
+        }
+
+        this.inputsPerSecond = inputsPerSecond;
+    }
+
+    @Override
+    public void decide(@NotNull VoteCounts counts, @NotNull IntConsumer decisions) {
+        credit = Math.min(Math.max(inputsPerSecond, 1),
+                credit + inputsPerSecond * counts.getWindowNanos() / 1_000_000_000.0);
+
+        int counted = counts.getCounted();
+        int executed = (int) Math.min(counted, (long) credit);
+        credit -= executed;
+
+        for (int i = 0; i < executed; i++) {
+            decisions.accept(counts.getCountedCommand((int) ((long) i * counted / executed)));
+        }
+    }
+}
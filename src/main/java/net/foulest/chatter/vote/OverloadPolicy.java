@@ -0,0 +1,42 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+/**
+ * What a vote window does with votes that arrive after its buffer is full.
+ */
+public enum OverloadPolicy {
+
+    /**
+     * Drops every vote past the buffer's capacity.
+     * The window is decided by its earliest votes.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Keeps a uniform random sample of all the window's votes.
+     * The window is decided by a sample that represents the whole flood.
+     */
+    RESERVOIR_SAMPLE,
+
+    /**
+     * Counts the votes past the buffer's capacity without buffering them.
+     * Every vote counts, but overflow votes skip per-vote processing.
+     */
+    COUNT_ONLY
+}
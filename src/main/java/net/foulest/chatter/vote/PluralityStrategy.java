@@ -0,0 +1,50 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Executes the input with the most votes in each window.
+ * <p>
+ * Ties go to the lowest ordinal. The winner is held long only if long
+ * votes outnumber short votes for it.
+ */
+public class PluralityStrategy implements VoteStrategy {
+
+    @Override
+    public void decide(@NotNull VoteCounts counts, @NotNull IntConsumer decisions) {
+        int winner = -1;
+        long maxCount = 0;
+
+        for (int ordinal = 0; ordinal < counts.getOrdinals(); ordinal++) {
+            long total = counts.getTotal(ordinal);
+
+            if (total > maxCount) {
+                maxCount = total;
+                winner = ordinal;
+            }
+        }
+
+        if (winner != -1) {
+            decisions.accept(counts.getMajorityCommand(winner));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import java.util.Arrays;
+
+/**
+ * Counts how many votes each user has cast in the window being drained.
+ * <p>
+ * Users are kept in an open-addressing table of primitive ints sized to
+ * at most half full, so a lookup is O(1) and never allocates. Each slot is
+ * stamped with the window's generation, so starting a new window is a
+ * single increment instead of clearing the table. The set is only used by
+ * the thread draining a window.
+ */
+class UserVoteSet {
+
+    private final int[] users;
+    private final int[] generations;
+    private final int[] votes;
+    private final int mask;
+
+    private int generation = 1;
+
+    /**
+     * Constructs a new user vote set.
+     *
+     * @param capacity The most users a window can hold.
+     */
+    UserVoteSet(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 2;
+        users = new int[size];
+        generations = new int[size];
+        votes = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Counts a vote for a user if the user has votes left.
+     *
+     * @param user  The user's key; never 0.
+     * @param limit The number of votes each user gets per window.
+     * @return Whether the vote counts.
+     */
+    boolean tryVote(int user, int limit) {
+        int slot = mix(user) & mask;
+
+        while (generations[slot] == generation) {
+            if (users[slot] == user) {
+                if (votes[slot] >= limit) {
+                    return false;
+                }
+
+                votes[slot]++;
+                return true;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        generations[slot] = generation;
+        users[slot] = user;
+        votes[slot] = 1;
+        return true;
+    }
+
+    /**
+     * Forgets every user's votes.
+     */
+    void reset() {
+        generation++;
+
+        // Clears the stamps once the generation wraps so old slots can't look current.
+        if (generation == 0) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    private static int mix(int user) {
+        int hash = user * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
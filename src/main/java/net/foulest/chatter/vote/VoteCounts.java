@@ -0,0 +1,128 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+/**
+ * The counted votes of a closed window, as seen by a {@link VoteStrategy}.
+ * <p>
+ * Each window reuses one instance, so counting never allocates; the
+ * counts are only valid while the strategy is deciding. Commands are
+ * encoded as {@code ordinal << 1 | long}.
+ */
+public final class VoteCounts {
+
+    // Weighted vote totals per command
+    final long[] totals;
+
+    // Command of each counted vote in the order the votes arrived
+    final int[] order;
+    int counted;
+
+    long votes;
+    long windowNanos;
+
+    /**
+     * Constructs new vote counts.
+     *
+     * @param ordinals The number of input ordinals.
+     * @param capacity The number of votes a window buffers.
+     */
+    VoteCounts(int ordinals, int capacity) {
+        totals = new long[ordinals * 2];
+        order = new int[capacity];
+    }
+
+    /**
+     * Gets the number of input ordinals.
+     *
+     * @return The number of ordinals being voted on.
+     */
+    public int getOrdinals() {
+        return totals.length >> 1;
+    }
+
+    /**
+     * Gets the weighted number of votes for an input, short and long.
+     *
+     * @param ordinal The ordinal of the input.
+     * @return The input's weighted votes.
+     */
+    public long getTotal(int ordinal) {
+        return totals[ordinal << 1] + totals[(ordinal << 1) | 1];
+    }
+
+    /**
+     * Gets the command voters chose for an input: long only if long votes outnumber short votes.
+     *
+     * @param ordinal The ordinal of the input.
+     * @return The command encoded as {@code ordinal << 1 | long}.
+     */
+    public int getMajorityCommand(int ordinal) {
+        return (ordinal << 1) | (totals[(ordinal << 1) | 1] > totals[ordinal << 1] ? 1 : 0);
+    }
+
+    /**
+     * Gets the weighted number of votes in the window.
+     *
+     * @return The total weight of the counted votes.
+     */
+    public long getVotes() {
+        return votes;
+    }
+
+    /**
+     * Gets the number of buffered votes that were counted, in arrival order.
+     * Votes counted past the buffer's capacity have no order and are left out.
+     *
+     * @return The number of ordered votes.
+     */
+    public int getCounted() {
+        return counted;
+    }
+
+    /**
+     * Gets the command of a counted vote.
+     *
+     * @param index The vote's position in arrival order, below {@link #getCounted()}.
+     * @return The command encoded as {@code ordinal << 1 | long}.
+     */
+    public int getCountedCommand(int index) {
+        return order[index];
+    }
+
+    /**
+     * Gets how long the window was open.
+     *
+     * @return The window's length in nanoseconds.
+     */
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * Clears the counts for the next window.
+     */
+    void clear() {
+        for (int command = 0; command < totals.length; command++) {
+            totals[command] = 0;
+        }
+
+        counted = 0;
+        votes = 0;
+    }
+}
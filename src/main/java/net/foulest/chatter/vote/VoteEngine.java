@@ -0,0 +1,505 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import net.foulest.chatter.input.CommandIndex;
+import net.foulest.chatter.input.InputOrdinals;
+import net.foulest.chatter.input.InputRequest;
+import net.foulest.chatter.metrics.PipelineMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects chat votes into tumbling windows.
+ * <p>
+ * A single scheduler thread closes each window, swaps in a fresh one,
+ * and fires the input requests its {@link VoteStrategy} decides on; by
+ * default, the one input with the most votes. The strategy also sets
+ * each window's length. Each window buffers a bounded number of votes, so memory stays fixed
+ * however fast chat floods in; votes past the bound are handled by the
+ * engine's {@link OverloadPolicy}. Votes carry their user, so each user
+ * can be limited to a number of votes per window. Submitting a vote never
+ * allocates.
+ */
+@Slf4j(topic = "Chatter")
+public class VoteEngine {
+
+    private final long configuredWindowMillis;
+    private final int capacity;
+    private final OverloadPolicy policy;
+    private final int votesPerUser;
+    private final LongSupplier clock;
+    private final Consumer<InputRequest> decisionHandler;
+    private final PipelineMetrics metrics;
+    private final AtomicReference<VoteWindow> currentWindow;
+    private final IntConsumer decisions = this::decide;
+
+    // Decides each window and sets the next window's length
+    private volatile VoteStrategy strategy;
+
+    // Length of the open window in milliseconds
+    private volatile long windowMillis;
+
+    // The window being decided and its close time, only touched while closing
+    private VoteWindow decidingWindow;
+    private long decidingAt;
+    private InputRequest lastDecision;
+
+    // The ordinals the next window opens with
+    private volatile InputOrdinals ordinals;
+
+    // The drained window that becomes current on the next close
+    private VoteWindow spareWindow;
+
+    // Each user's votes in the window being drained
+    private final UserVoteSet userVotes;
+
+    // Number of votes in the most recently closed window
+    private volatile long lastWindowVotes;
+
+    // Most votes offered to any one window, and the total number of votes shed
+    private volatile int highWaterMark;
+    private volatile long shedVotes;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new vote engine using the system clock.
+     *
+     * @param ordinals        The ordinals of the inputs being voted on.
+     * @param windowMillis    The length of each vote window in milliseconds.
+     * @param decisionHandler The handler that receives each window's winning input.
+     * @param metrics         The metrics to record each window in.
+     */
+    public VoteEngine(@NotNull InputOrdinals ordinals, long windowMillis,
+                      @NotNull Consumer<InputRequest> decisionHandler, @NotNull PipelineMetrics metrics) {
+        this(ordinals, windowMillis, System::currentTimeMillis, decisionHandler, metrics);
+    }
+
+    /**
+     * Constructs a new vote engine.
+     * <p>
+     * Supplying a fake clock and calling {@link #tick()} instead of {@link #start()}
+     * allows windows to be driven deterministically.
+     *
+     * @param ordinals        The ordinals of the inputs being voted on.
+     * @param windowMillis    The length of each vote window in milliseconds.
+     * @param clock           The clock used to time windows, in milliseconds.
+     * @param decisionHandler The handler that receives each window's winning input.
+     * @param metrics         The metrics to record each window in.
+     */
+    public VoteEngine(@NotNull InputOrdinals ordinals, long windowMillis, @NotNull LongSupplier clock,
+                      @NotNull Consumer<InputRequest> decisionHandler, @NotNull PipelineMetrics metrics) {
+        this(ordinals, new VoteSettings(windowMillis), clock, decisionHandler, metrics);
+    }
+
+    /**
+     * Constructs a new vote engine with custom settings.
+     *
+     * @param ordinals        The ordinals of the inputs being voted on.
+     * @param settings        How windows are sized, filled and counted.
+     * @param clock           The clock used to time windows, in milliseconds.
+     * @param decisionHandler The handler that receives each window's winning input.
+     * @param metrics         The metrics to record each window in.
+     */
+    public VoteEngine(@NotNull InputOrdinals ordinals, @NotNull VoteSettings settings, @NotNull LongSupplier clock,
+                      @NotNull Consumer<InputRequest> decisionHandler, @NotNull PipelineMetrics metrics) {
+        this(ordinals, settings, new PluralityStrategy(), clock, decisionHandler, metrics);
+    }
+
+    /**
+     * Constructs a new vote engine with custom settings and a strategy.
+     *
+     * @param ordinals        The ordinals of the inputs being voted on.
+     * @param settings        How windows are sized, filled and counted.
+     * @param strategy        How windows are decided; not shared with other engines.
+     * @param clock           The clock used to time windows, in milliseconds.
+     * @param decisionHandler The handler that receives each decided input.
+     * @param metrics         The metrics to record each window in.
+     */
+    public VoteEngine(@NotNull InputOrdinals ordinals, @NotNull VoteSettings settings,
+                      @NotNull VoteStrategy strategy, @NotNull LongSupplier clock,
+                      @NotNull Consumer<InputRequest> decisionHandler, @NotNull PipelineMetrics metrics) {
+        this.ordinals = ordinals;
+        this.strategy = strategy;
+        configuredWindowMillis = settings.getWindowMillis();
+        windowMillis = configuredWindowMillis;
+        capacity = settings.getCapacity();
+        policy = settings.getOverloadPolicy();
+        votesPerUser = settings.getVotesPerUser();
+        this.clock = clock;
+        this.decisionHandler = decisionHandler;
+        this.metrics = metrics;
+
+        VoteWindow window = new VoteWindow(ordinals, capacity, policy);
+        window.openedAt = clock.getAsLong();
+        window.openedNanos = System.nanoTime();
+        currentWindow = new AtomicReference<>(window);
+        spareWindow = new VoteWindow(ordinals, capacity, policy);
+        userVotes = new UserVoteSet(capacity);
+    }
+
+    /**
+     * Starts closing windows on a dedicated scheduler thread.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = ChatterThreads.newScheduler("Chatter-VoteEngine");
+
+        scheduler.schedule(this::closeOnSchedule, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes the open window and schedules the next close for the end of the next window.
+     */
+    private void closeOnSchedule() {
+        try {
+            closeWindow();
+        } catch (RuntimeException ex) {
+            log.error("Failed to close vote window.", ex);
+        }
+
+        synchronized (this) {
+            if (scheduler != null) {
+                long elapsed = System.nanoTime() - currentWindow.get().openedNanos;
+                long delay = Math.max(0, TimeUnit.MILLISECONDS.toNanos(windowMillis) - elapsed);
+                scheduler.schedule(this::closeOnSchedule, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stops the scheduler thread.
+     * Votes in the open window are discarded.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Adds a vote to the currently open window.
+     *
+     * @param ordinal   The ordinal of the voted input.
+     * @param longInput Whether the vote is for a long input.
+     */
+    public void submit(int ordinal, boolean longInput) {
+        submit(ordinal, longInput, System.nanoTime());
+    }
+
+    /**
+     * Adds a vote to the currently open window.
+     *
+     * @param ordinal       The ordinal of the voted input.
+     * @param longInput     Whether the vote is for a long input.
+     * @param receivedNanos The time the vote was received.
+     */
+    public void submit(int ordinal, boolean longInput, long receivedNanos) {
+        submit(ordinal, longInput, receivedNanos, 1);
+    }
+
+    /**
+     * Adds a weighted vote to the currently open window.
+     *
+     * @param ordinal       The ordinal of the voted input.
+     * @param longInput     Whether the vote is for a long input.
+     * @param receivedNanos The time the vote was received.
+     * @param weight        The number of votes the vote counts as, up to 65535.
+     */
+    public void submit(int ordinal, boolean longInput, long receivedNanos, int weight) {
+        submit(ordinal, longInput, receivedNanos, weight, 0);
+    }
+
+    /**
+     * Adds a weighted vote from a user to the currently open window.
+     * Each user only gets the configured number of votes per window.
+     * The ordinal must belong to the ordinals the engine was created with.
+     *
+     * @param ordinal       The ordinal of the voted input.
+     * @param longInput     Whether the vote is for a long input.
+     * @param receivedNanos The time the vote was received.
+     * @param weight        The number of votes the vote counts as, up to 65535.
+     * @param user          The key of the user who voted, or 0 if unknown.
+     */
+    public void submit(int ordinal, boolean longInput, long receivedNanos, int weight, int user) {
+        VoteWindow window = enterWindow();
+        window.tally.add(ordinal, longInput, receivedNanos - window.openedNanos, weight, user);
+        window.writers.decrementAndGet();
+    }
+
+    /**
+     * Adds a weighted vote from a user to the currently open window if the
+     * window counts votes for the ordinals the vote was looked up in.
+     * Votes looked up in a profile that was just reloaded are rejected
+     * until the window opened with the new profile.
+     *
+     * @param ordinals      The ordinals the vote was looked up in.
+     * @param ordinal       The ordinal of the voted input.
+     * @param longInput     Whether the vote is for a long input.
+     * @param receivedNanos The time the vote was received.
+     * @param weight        The number of votes the vote counts as, up to 65535.
+     * @param user          The key of the user who voted, or 0 if unknown.
+     * @return Whether the vote was added.
+     */
+    public boolean submit(@NotNull InputOrdinals ordinals, int ordinal, boolean longInput,
+                          long receivedNanos, int weight, int user) {
+        VoteWindow window = enterWindow();
+        boolean current = window.ordinals == ordinals;
+
+        if (current) {
+            window.tally.add(ordinal, longInput, receivedNanos - window.openedNanos, weight, user);
+        }
+
+        window.writers.decrementAndGet();
+        return current;
+    }
+
+    /**
+     * Adds every command of a compound message to the currently open window as one ballot.
+     * The ballot counts as a single vote towards the user's limit, and its
+     * weight is split across its commands, so it counts as much as a single vote.
+     *
+     * @param commandIndex  The index the message's commands are looked up in.
+     * @param message       The message, already checked to hold only commands.
+     * @param tokens        The number of tokens in the message.
+     * @param receivedNanos The time the ballot was received.
+     * @param weight        The number of votes the whole ballot counts as, up to 65535.
+     * @param user          The key of the user who voted, or 0 if unknown.
+     * @return Whether the ballot was added; false if it was looked up in a profile that was just reloaded.
+     */
+    public boolean submitBallot(@NotNull CommandIndex commandIndex, @NotNull CharSequence message, int tokens,
+                                long receivedNanos, int weight, int user) {
+        VoteWindow window = enterWindow();
+        boolean current = window.ordinals == commandIndex.getOrdinals();
+
+        if (current) {
+            window.tally.addBallot(commandIndex, message, tokens, receivedNanos - window.openedNanos, weight, user);
+        }
+
+        window.writers.decrementAndGet();
+        return current;
+    }
+
+    /**
+     * Adds already looked-up commands to the currently open window as one ballot.
+     * The ballot counts as a single vote towards the user's limit.
+     *
+     * @param ordinals      The ordinals the commands were looked up in.
+     * @param commands      The ballot's commands, each encoded as {@code ordinal << 1 | long}.
+     * @param weights       The number of votes each command counts as, its share of the ballot's weight.
+     * @param tokens        The number of commands in the ballot.
+     * @param receivedNanos The time the ballot was received.
+     * @param user          The key of the user who voted, or 0 if unknown.
+     * @return Whether the ballot was added; false if it was looked up in a profile that was just reloaded.
+     */
+    public boolean submitBallot(@NotNull InputOrdinals ordinals, @NotNull int[] commands, @NotNull int[] weights,
+                                int tokens, long receivedNanos, int user) {
+        VoteWindow window = enterWindow();
+        boolean current = window.ordinals == ordinals;
+
+        if (current) {
+            window.tally.addBallot(commands, weights, tokens, receivedNanos - window.openedNanos, user);
+        }
+
+        window.writers.decrementAndGet();
+        return current;
+    }
+
+    /**
+     * Sets the ordinals of the inputs being voted on, such as after a profile reload.
+     * The window that is open keeps counting the old ordinals; the next window uses the new ones.
+     *
+     * @param ordinals The new ordinals.
+     */
+    public void setOrdinals(@NotNull InputOrdinals ordinals) {
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * Sets how windows are decided, such as after switching applications.
+     * The strategy takes over from the next window that closes.
+     *
+     * @param strategy The new strategy; not shared with other engines.
+     */
+    public void setStrategy(@NotNull VoteStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Gets the length of the open window.
+     *
+     * @return The window's length in milliseconds.
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Registers as a writer of the currently open window.
+     * The caller must deregister once it has written its votes.
+     *
+     * @return The open window.
+     */
+    private @NotNull VoteWindow enterWindow() {
+        while (true) {
+            VoteWindow window = currentWindow.get();
+            window.writers.incrementAndGet();
+
+            // The window was swapped out before we registered; retry on the new one.
+            if (currentWindow.get() == window) {
+                return window;
+            }
+
+            window.writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Closes the open window if the clock has passed its end.
+     * This is the hook used to drive windows from a fake clock.
+     *
+     * @return The winning input, or null if no window closed or it had no votes.
+     */
+    public synchronized @Nullable InputRequest tick() {
+        if (clock.getAsLong() - currentWindow.get().openedAt < windowMillis) {
+            return null;
+        }
+        return closeWindow();
+    }
+
+    /**
+     * Closes the open window immediately and fires its decided inputs.
+     *
+     * @return The last decided input, or null if the window had no votes.
+     */
+    public synchronized @Nullable InputRequest closeWindow() {
+        long now = clock.getAsLong();
+        long nowNanos = System.nanoTime();
+        InputOrdinals nextOrdinals = ordinals;
+        VoteWindow next = spareWindow;
+
+        // Opens the next window with new ordinals if the profile was reloaded.
+        if (next.ordinals != nextOrdinals) {
+            next = new VoteWindow(nextOrdinals, capacity, policy);
+        }
+
+        next.openedAt = now;
+        next.openedNanos = nowNanos;
+        VoteWindow closed = currentWindow.getAndSet(next);
+
+        // Wait for submitters that grabbed the old window to finish counting.
+        while (closed.writers.get() != 0) {
+            Thread.yield();
+        }
+
+        VoteCounts counts = closed.tally.drain(userVotes, votesPerUser);
+        counts.windowNanos = TimeUnit.MILLISECONDS.toNanos(now - closed.openedAt);
+        long votes = counts.getVotes();
+        long meanReceivedNanos = closed.openedNanos + closed.tally.drainMeanReceivedOffset();
+        int offered = closed.tally.getDrainedOffered();
+        int shed = closed.tally.getDrainedShed();
+        int duplicates = closed.tally.getDrainedDuplicates();
+        lastWindowVotes = votes;
+        spareWindow = closed;
+
+        if (offered > highWaterMark) {
+            highWaterMark = offered;
+        }
+
+        if (shed > 0) {
+            shedVotes += shed;
+            metrics.onShed(shed);
+        }
+
+        if (duplicates > 0) {
+            metrics.onDuplicates(duplicates);
+        }
+
+        metrics.onWindowOffered(offered);
+
+        if (votes > 0) {
+            metrics.onWindowClosed(votes, nowNanos - meanReceivedNanos);
+        }
+
+        VoteStrategy current = strategy;
+        decidingWindow = closed;
+        decidingAt = now;
+        lastDecision = null;
+
+        try {
+            current.decide(counts, decisions);
+        } finally {
+            decidingWindow = null;
+            windowMillis = Math.max(1, current.nextWindowMillis(configuredWindowMillis, counts));
+        }
+        return lastDecision;
+    }
+
+    /**
+     * Fires a decided input of the window being closed.
+     *
+     * @param command The decided command encoded as {@code ordinal << 1 | long}.
+     */
+    private void decide(int command) {
+        InputRequest request = new InputRequest(decidingWindow.ordinals.getInput(command >> 1), command >> 1,
+                (command & 1) == 1, decidingAt);
+        lastDecision = request;
+        decisionHandler.accept(request);
+    }
+
+    /**
+     * Gets the number of votes in the most recently closed window.
+     *
+     * @return The number of votes in the last closed window.
+     */
+    public long getLastWindowVotes() {
+        return lastWindowVotes;
+    }
+
+    /**
+     * Gets the most votes offered to any one window.
+     *
+     * @return The highest number of votes offered to a window, including shed votes.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Gets the number of votes shed because a window's buffer was full.
+     *
+     * @return The total number of votes dropped or sampled out.
+     */
+    public long getShedVotes() {
+        return shedVotes;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * How a vote engine sizes, fills and counts its windows.
+ */
+@Getter
+@ToString
+public class VoteSettings {
+
+    /**
+     * The default number of votes buffered per window.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The default policy for votes past a window's capacity.
+     */
+    public static final OverloadPolicy DEFAULT_POLICY = OverloadPolicy.RESERVOIR_SAMPLE;
+
+    /**
+     * The default number of votes each user gets per window.
+     */
+    public static final int DEFAULT_VOTES_PER_USER = 1;
+
+    private final long windowMillis;
+    private final int capacity;
+    private final OverloadPolicy overloadPolicy;
+    private final int votesPerUser;
+
+    /**
+     * Constructs new vote settings with the default buffer and one vote per user.
+     *
+     * @param windowMillis The length of each vote window in milliseconds.
+     */
+    public VoteSettings(long windowMillis) {
+        this(windowMillis, DEFAULT_CAPACITY, DEFAULT_POLICY, DEFAULT_VOTES_PER_USER);
+    }
+
+    /**
+     * Constructs new vote settings.
+     *
+     * @param windowMillis   The length of each vote window in milliseconds.
+     * @param capacity       The number of votes buffered per window.
+     * @param overloadPolicy What to do with votes once a window's buffer is full.
+     * @param votesPerUser   The number of votes each user gets per window, or 0 for no limit.
+     */
+    public VoteSettings(long windowMillis, int capacity, @NotNull OverloadPolicy overloadPolicy, int votesPerUser) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window length must be positive: " + windowMillis);
+        }
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Window capacity must be positive: " + capacity);
+        }
+
+        if (votesPerUser < 0) {
+            throw new IllegalArgumentException("Votes per user must not be negative: " + votesPerUser);
+        }
+
+        this.windowMillis = windowMillis;
+        this.capacity = capacity;
+        this.overloadPolicy = overloadPolicy;
+        this.votesPerUser = votesPerUser;
+    }
+}
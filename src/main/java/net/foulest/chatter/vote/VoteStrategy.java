@@ -0,0 +1,61 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Decides which inputs a closed vote window executes, and how long the next window is.
+ * <p>
+ * Strategies are called only from the thread closing the engine's
+ * windows, so they may keep state between windows without locking. Each
+ * vote engine needs its own instance. Decisions are passed on as
+ * commands encoded as {@code ordinal << 1 | long}.
+ */
+public interface VoteStrategy {
+
+    /**
+     * Decides which inputs a closed window executes.
+     *
+     * @param counts    The window's counted votes, only valid during this call.
+     * @param decisions Receives each command to execute, in the order to execute them.
+     */
+    void decide(@NotNull VoteCounts counts, @NotNull IntConsumer decisions);
+
+    /**
+     * Gets the length of the next window.
+     *
+     * @param windowMillis The configured window length in milliseconds.
+     * @param counts       The counted votes of the window that just closed.
+     * @return The length of the next window in milliseconds.
+     */
+    default long nextWindowMillis(long windowMillis, @NotNull VoteCounts counts) {
+        return windowMillis;
+    }
+
+    /**
+     * Seeds any random choices the strategy makes, so the same votes get the same decisions.
+     * Strategies that make no random choices ignore the seed.
+     *
+     * @param seed The seed of the strategy's random choices.
+     */
+    default void seed(long seed) {
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import net.foulest.chatter.input.CommandIndex;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the votes of a single window.
+ * <p>
+ * Submitters claim a slot in a fixed-size buffer with one atomic increment
+ * and store their vote there as a packed long of user, weight and input,
+ * so recording a vote never allocates and never takes a lock. The closing
+ * thread is the only reader: it counts the buffer per input once every
+ * submitter has left the window, skipping votes from users who are out of
+ * votes, and hands the counts to a {@link VoteStrategy}. Votes past the
+ * buffer's capacity are handled by the {@link OverloadPolicy}; votes
+ * counted under COUNT_ONLY skip the user limit.
+ */
+class VoteTally {
+
+    // Bits of a packed vote holding the input, its weight and its user
+    private static final int COMMAND_BITS = 16;
+    private static final int USER_SHIFT = 32;
+    private static final long COMMAND_MASK = (1L << (COMMAND_BITS - 1)) - 1;
+    private static final long WEIGHT_MASK = 0xFFFFL;
+
+    // Marks a vote that belongs to the ballot of the vote before it
+    private static final long CONTINUATION = 1L << (COMMAND_BITS - 1);
+
+    private final AtomicLongArray buffer;
+
+    // Receipt time of the vote in each slot relative to the window opening
+    private final AtomicLongArray receivedOffsets;
+
+    // Claimed index of the first vote of the ballot in each slot, so a sampled
+    // vote that replaces part of a ballot cuts the rest of the ballot off
+    private final AtomicIntegerArray ballots;
+
+    private final AtomicInteger offered = new AtomicInteger();
+    private final OverloadPolicy policy;
+
+    // Weighted votes counted without buffering under COUNT_ONLY
+    private final LongAdder[] overflowCounts;
+
+    // Sum of the weighted receipt times of the votes counted under COUNT_ONLY
+    private final LongAdder overflowOffsets = new LongAdder();
+
+    // Counts of the last drain, only touched while draining
+    private final VoteCounts counts;
+
+    // Results of the last drain
+    private int drainedOffered;
+    private int drainedShed;
+    private int drainedDuplicates;
+    private long drainedOffsets;
+
+    /**
+     * Constructs a new vote tally.
+     *
+     * @param ordinals The number of input ordinals.
+     * @param capacity The number of votes the buffer holds.
+     * @param policy   What to do with votes once the buffer is full.
+     */
+    VoteTally(int ordinals, int capacity, OverloadPolicy policy) {
+        if (ordinals << 1 > COMMAND_MASK + 1) {
+            throw new IllegalArgumentException("Too many inputs: " + ordinals);
+        }
+
+        buffer = new AtomicLongArray(capacity);
+        receivedOffsets = new AtomicLongArray(capacity);
+        ballots = new AtomicIntegerArray(capacity);
+        this.policy = policy;
+        counts = new VoteCounts(ordinals, capacity);
+        overflowCounts = new LongAdder[policy == OverloadPolicy.COUNT_ONLY ? ordinals * 2 : 0];
+
+        for (int i = 0; i < overflowCounts.length; i++) {
+            overflowCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a vote.
+     *
+     * @param ordinal        The ordinal of the voted input.
+     * @param longInput      Whether the vote is for a long input.
+     * @param receivedOffset The time the vote was received relative to the window opening, in nanoseconds.
+     * @param weight         The number of votes the vote counts as, up to 65535.
+     * @param user           The key of the user who voted, or 0 if unknown.
+     */
+    void add(int ordinal, boolean longInput, long receivedOffset, int weight, int user) {
+        int command = (ordinal << 1) | (longInput ? 1 : 0);
+        int index = offered.getAndIncrement();
+        store(index, index, command, weight, user, receivedOffset);
+    }
+
+    /**
+     * Records every command of a compound message as one ballot.
+     * <p>
+     * The ballot's votes take consecutive slots, so the user limit
+     * accepts or skips the whole ballot at once, and the ballot's weight
+     * is split across them, so it counts no more than a single vote.
+     *
+     * @param commandIndex   The index the message's commands are looked up in.
+     * @param message        The message, already checked to hold only commands.
+     * @param tokens         The number of tokens in the message.
+     * @param receivedOffset The time the ballot was received relative to the window opening, in nanoseconds.
+     * @param weight         The number of votes the whole ballot counts as, up to 65535.
+     * @param user           The key of the user who voted, or 0 if unknown.
+     */
+    void addBallot(CommandIndex commandIndex, CharSequence message, int tokens,
+                   long receivedOffset, int weight, int user) {
+        int first = offered.getAndAdd(tokens);
+        int totalRepeats = commandIndex.countRepeats(message);
+        int repeatsBefore = 0;
+        int position = 0;
+
+        for (int i = 0; i < tokens; i++) {
+            long token = commandIndex.nextToken(message, position);
+            int repeat = CommandIndex.tokenRepeat(token);
+            int tokenWeight = CommandIndex.ballotShare(weight, repeatsBefore, repeat, totalRepeats);
+            repeatsBefore += repeat;
+            position = CommandIndex.tokenEnd(token);
+            store(first + i, first, CommandIndex.tokenCommand(token), tokenWeight, user, receivedOffset);
+        }
+    }
+
+    /**
+     * Records already looked-up commands as one ballot, such as a ballot read back from a journal.
+     *
+     * @param commands       The ballot's commands, each encoded as {@code ordinal << 1 | long}.
+     * @param weights        The number of votes each command counts as, its share of the ballot's weight.
+     * @param tokens         The number of commands in the ballot.
+     * @param receivedOffset The time the ballot was received relative to the window opening, in nanoseconds.
+     * @param user           The key of the user who voted, or 0 if unknown.
+     */
+    void addBallot(int[] commands, int[] weights, int tokens, long receivedOffset, int user) {
+        int first = offered.getAndAdd(tokens);
+
+        for (int i = 0; i < tokens; i++) {
+            int tokenWeight = (int) Math.min(weights[i], WEIGHT_MASK);
+            store(first + i, first, commands[i], tokenWeight, user, receivedOffset);
+        }
+    }
+
+    /**
+     * Stores a vote in its claimed slot, or applies the overload policy if the buffer is full.
+     *
+     * @param index          The claimed slot.
+     * @param ballot         The claimed slot of the ballot's first vote, or the vote's own slot if it stands alone.
+     * @param command        The voted command encoded as {@code ordinal << 1 | long}.
+     * @param weight         The number of votes the vote counts as.
+     * @param user           The key of the user who voted, or 0 if unknown.
+     * @param receivedOffset The time the vote was received relative to the window opening, in nanoseconds.
+     */
+    private void store(int index, int ballot, int command, int weight, int user, long receivedOffset) {
+        long vote = ((long) user << USER_SHIFT) | ((long) weight << COMMAND_BITS) | command;
+
+        if (index < buffer.length()) {
+            receivedOffsets.lazySet(index, receivedOffset);
+            ballots.lazySet(index, ballot);
+            buffer.lazySet(index, index != ballot ? vote | CONTINUATION : vote);
+        } else if (policy == OverloadPolicy.COUNT_ONLY) {
+            overflowCounts[command].add(weight);
+            overflowOffsets.add(receivedOffset * weight);
+        } else if (policy == OverloadPolicy.RESERVOIR_SAMPLE) {
+            // Replaces a random slot so every vote so far is equally likely to be kept.
+            // A sampled vote stands alone, since its ballot's other votes may not be kept,
+            // and the rest of a ballot it replaces part of is cut off when draining.
+            int slot = ThreadLocalRandom.current().nextInt(index + 1);
+
+            if (slot < buffer.length()) {
+                receivedOffsets.lazySet(slot, receivedOffset);
+                ballots.lazySet(slot, index);
+                buffer.lazySet(slot, vote);
+            }
+        }
+    }
+
+    /**
+     * Counts the votes and resets the tally.
+     * This must only be called once no submitter is writing to the window.
+     * <p>
+     * Each user's earliest buffered ballots count, up to the limit; votes
+     * from unknown users always count.
+     *
+     * @param userVotes    The set used to count each user's votes; reset by this call.
+     * @param votesPerUser The number of votes each user gets, or 0 for no limit.
+     * @return The counts, valid until the next drain.
+     */
+    VoteCounts drain(UserVoteSet userVotes, int votesPerUser) {
+        long[] totals = counts.totals;
+        int[] order = counts.order;
+        int counted = 0;
+        counts.clear();
+
+        int offeredVotes = offered.getAndSet(0);
+        int buffered = Math.min(offeredVotes, buffer.length());
+        int duplicates = 0;
+        int cutOff = 0;
+        long offsets = 0;
+        int ballot = -1;
+        boolean ballotCounts = true;
+        userVotes.reset();
+
+        for (int i = 0; i < buffered; i++) {
+            long vote = buffer.get(i);
+            int user = (int) (vote >>> USER_SHIFT);
+            buffer.lazySet(i, 0);
+
+            // The first vote of a ballot decides whether the rest of it counts.
+            if ((vote & CONTINUATION) == 0) {
+                ballot = ballots.get(i);
+                ballotCounts = votesPerUser == 0 || user == 0 || userVotes.tryVote(user, votesPerUser);
+            } else if (ballots.get(i) != ballot) {
+                // Skips the rest of a ballot whose start was replaced by a sampled vote.
+                cutOff++;
+                continue;
+            }
+
+            if (!ballotCounts) {
+                duplicates++;
+                continue;
+            }
+
+            int command = (int) (vote & COMMAND_MASK);
+            long weight = (vote >>> COMMAND_BITS) & WEIGHT_MASK;
+            totals[command] += weight;
+            offsets += receivedOffsets.get(i) * weight;
+            order[counted++] = command;
+        }
+
+        for (int command = 0; command < overflowCounts.length; command++) {
+            totals[command] += overflowCounts[command].sumThenReset();
+        }
+
+        offsets += overflowOffsets.sumThenReset();
+
+        long votes = 0;
+        for (long total : totals) {
+            votes += total;
+        }
+
+        counts.counted = counted;
+        counts.votes = votes;
+        drainedOffered = offeredVotes;
+        drainedShed = (policy == OverloadPolicy.COUNT_ONLY ? 0 : offeredVotes - buffered) + cutOff;
+        drainedDuplicates = duplicates;
+        drainedOffsets = offsets;
+        return counts;
+    }
+
+    /**
+     * Gets the weighted mean receipt time of the votes the last drain counted.
+     * Votes skipped for the user limit or sampled out don't take part.
+     * This must be called after {@link #drain(UserVoteSet, int)}.
+     *
+     * @return The mean receipt time relative to the window opening, in nanoseconds.
+     */
+    long drainMeanReceivedOffset() {
+        return counts.votes == 0 ? 0 : drainedOffsets / counts.votes;
+    }
+
+    /**
+     * Gets the number of votes offered to the window before the last drain.
+     *
+     * @return The number of votes offered, including shed votes.
+     */
+    int getDrainedOffered() {
+        return drainedOffered;
+    }
+
+    /**
+     * Gets the number of votes the last drain skipped because their user was out of votes.
+     *
+     * @return The number of duplicate votes skipped.
+     */
+    int getDrainedDuplicates() {
+        return drainedDuplicates;
+    }
+
+    /**
+     * Gets the number of votes the last drained window shed.
+     *
+     * @return The number of votes dropped or sampled out.
+     */
+    int getDrainedShed() {
+        return drainedShed;
+    }
+}
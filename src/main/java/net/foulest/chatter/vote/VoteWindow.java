@@ -0,0 +1,50 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import net.foulest.chatter.input.InputOrdinals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a single tumbling vote window.
+ * <p>
+ * Windows are reused once closed and drained. Each window counts votes
+ * for the ordinals it was created with, so a reloaded profile takes
+ * effect from the next window on.
+ */
+class VoteWindow {
+
+    volatile long openedAt;
+    volatile long openedNanos;
+    final InputOrdinals ordinals;
+    final VoteTally tally;
+    final AtomicInteger writers = new AtomicInteger();
+
+    /**
+     * Constructs a new vote window.
+     *
+     * @param ordinals The ordinals of the inputs being voted on.
+     * @param capacity The number of votes the window buffers.
+     * @param policy   What to do with votes once the buffer is full.
+     */
+    VoteWindow(InputOrdinals ordinals, int capacity, OverloadPolicy policy) {
+        this.ordinals = ordinals;
+        tally = new VoteTally(ordinals.size(), capacity, policy);
+    }
+}
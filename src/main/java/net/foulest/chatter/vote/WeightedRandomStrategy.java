@@ -0,0 +1,74 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.vote;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Executes one input per window, picked at random in proportion to its votes.
+ * <p>
+ * An input with a third of the votes wins a third of the windows, so
+ * chat's minority still gets its way now and then instead of never.
+ * The input is held long only if long votes outnumber short votes for it.
+ */
+public class WeightedRandomStrategy implements VoteStrategy {
+
+    private SplittableRandom random;
+
+    /**
+     * Constructs a new weighted random strategy.
+     */
+    public WeightedRandomStrategy() {
+        random = new SplittableRandom();
+    }
+
+    /**
+     * Constructs a new weighted random strategy that picks the same inputs for the same votes.
+     *
+     * @param seed The seed of the random picks.
+     */
+    public WeightedRandomStrategy(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void seed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void decide(@NotNull VoteCounts counts, @NotNull IntConsumer decisions) {
+        if (counts.getVotes() == 0) {
+            return;
+        }
+
+        long pick = random.nextLong(counts.getVotes());
+
+        for (int ordinal = 0; ordinal < counts.getOrdinals(); ordinal++) {
+            pick -= counts.getTotal(ordinal);
+
+            if (pick < 0) {
+                decisions.accept(counts.getMajorityCommand(ordinal));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.window;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+/**
+ * Window provider that reports a fixed, settable foreground window.
+ * <p>
+ * This is used for headless runs and for testing on platforms without user32.dll.
+ */
+@Getter
+@Setter
+@ToString
+public class FixedWindowProvider implements WindowProvider {
+
+    private volatile @Nullable String foregroundWindowTitle;
+    private volatile @Nullable Rectangle foregroundWindowBounds;
+
+    /**
+     * Constructs a new fixed window provider.
+     *
+     * @param foregroundWindowTitle  The title of the foreground window.
+     * @param foregroundWindowBounds The bounds of the foreground window.
+     */
+    public FixedWindowProvider(@Nullable String foregroundWindowTitle, @Nullable Rectangle foregroundWindowBounds) {
+        this.foregroundWindowTitle = foregroundWindowTitle;
+        this.foregroundWindowBounds = foregroundWindowBounds;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.window;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.foulest.chatter.concurrent.ChatterThreads;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks whether the target application's window is in focus.
+ * <p>
+ * The foreground window is polled on a dedicated thread, and the result
+ * is published through volatile fields so the chat message path can
+ * read it without making any native calls.
+ * <p>
+ * The tracker can also match the titles of several applications at once
+ * through a {@link TitleMatcher}, reporting which one is in the foreground
+ * so the active profile can follow it.
+ */
+@Slf4j(topic = "Chatter")
+public class FocusTracker {
+
+    private final WindowProvider provider;
+    private final long pollMillis;
+
+    // The titles to match, replaced as a whole when the profile is reloaded
+    private volatile TitleMatcher<?> matcher;
+
+    /**
+     * Called on the polling thread with the new owner whenever a different owner's window comes into focus.
+     */
+    @Setter
+    private volatile @Nullable Consumer<Object> matchListener;
+
+    /**
+     * The owner whose title matched the foreground window as of the last poll, or null if none matched.
+     */
+    @Getter
+    private volatile @Nullable Object matchedOwner;
+
+    /**
+     * Whether the target application's window is in focus.
+     */
+    @Getter
+    private volatile boolean focused;
+
+    /**
+     * The title of the foreground window as of the last poll.
+     */
+    @Getter
+    private volatile @Nullable String windowTitle;
+
+    /**
+     * The bounds of the foreground window as of the last poll.
+     */
+    @Getter
+    private volatile @Nullable Rectangle windowBounds;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new focus tracker.
+     *
+     * @param provider     The provider to read the foreground window from.
+     * @param windowTitles The window titles of the target application.
+     * @param pollMillis   How often to poll the foreground window in milliseconds.
+     */
+    public FocusTracker(@NotNull WindowProvider provider, @NotNull List<String> windowTitles, long pollMillis) {
+        this.provider = provider;
+        this.pollMillis = pollMillis;
+        setWindowTitles(windowTitles);
+    }
+
+    /**
+     * Sets the window titles to match from the next poll on.
+     *
+     * @param windowTitles The window titles of the target application.
+     */
+    public void setWindowTitles(@NotNull List<String> windowTitles) {
+        List<String> titles = Collections.unmodifiableList(new ArrayList<>(windowTitles));
+        matcher = new TitleMatcher<>(Collections.singletonList(titles), owner -> owner);
+    }
+
+    /**
+     * Sets the matcher to match the foreground window with from the next poll on.
+     * The window is in focus whenever any of the matcher's owners matches.
+     *
+     * @param matcher The matcher to use.
+     */
+    public void setMatcher(@NotNull TitleMatcher<?> matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Polls once and then keeps polling on a dedicated thread.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        poll();
+
+        scheduler = ChatterThreads.newScheduler("Chatter-FocusTracker");
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException ex) {
+                log.error("Failed to poll the foreground window.", ex);
+            }
+        }, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reads the foreground window and publishes the result.
+     */
+    public void poll() {
+        String title = provider.getForegroundWindowTitle();
+        Object owner = title == null ? null : matcher.match(title);
+        Object previousOwner = matchedOwner;
+        boolean matched = owner != null;
+
+        // Lets the listener switch profiles before the new window is reported as focused.
+        Consumer<Object> listener = matchListener;
+        if (matched && owner != previousOwner && listener != null) {
+            listener.accept(owner);
+        }
+
+        windowTitle = title;
+        matchedOwner = owner;
+        windowBounds = matched ? provider.getForegroundWindowBounds() : null;
+        focused = matched;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.window;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Finds which owner's window titles occur in a window title.
+ * <p>
+ * Every owner's titles are compiled into one Aho-Corasick automaton with
+ * its failure links folded into a flat transition table, so matching
+ * reads each character of the title once with a single table lookup and
+ * never allocates, however many titles there are. Characters that appear
+ * in no title all share one column of the table. If titles of several
+ * owners match, the owner listed first wins. Matching is case-sensitive,
+ * like {@link String#contains(CharSequence)}.
+ *
+ * @param <T> The type of the owners.
+ */
+public final class TitleMatcher<T> {
+
+    private final List<T> owners;
+
+    // Sorted characters that appear in any title; column 0 is for every other character
+    private final char[] alphabet;
+    private final int columns;
+
+    // Next state for each state and column, with failure links already applied
+    private final int[] transitions;
+
+    // Lowest owner index whose title ends at each state, or Integer.MAX_VALUE
+    private final int[] matches;
+
+    /**
+     * Compiles a matcher for a list of owners.
+     *
+     * @param owners The owners, in priority order.
+     * @param titles Gets the window titles of an owner.
+     */
+    public TitleMatcher(@NotNull List<T> owners, @NotNull Function<? super T, ? extends Collection<String>> titles) {
+        this.owners = Collections.unmodifiableList(new ArrayList<>(owners));
+
+        SortedSet<Character> chars = new TreeSet<>();
+        for (T owner : owners) {
+            for (String title : titles.apply(owner)) {
+                for (int i = 0; i < title.length(); i++) {
+                    chars.add(title.charAt(i));
+                }
+            }
+        }
+
+        alphabet = new char[chars.size()];
+        int index = 0;
+        for (char c : chars) {
+            alphabet[index++] = c;
+        }
+        columns = alphabet.length + 1;
+
+        // Builds the trie of every title.
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> trieMatches = new ArrayList<>();
+        trie.add(new int[columns]);
+        trieMatches.add(Integer.MAX_VALUE);
+
+        for (int owner = 0; owner < owners.size(); owner++) {
+            for (String title : titles.apply(owners.get(owner))) {
+                if (title.isEmpty()) {
+                    continue;
+                }
+
+                int state = 0;
+
+                for (int i = 0; i < title.length(); i++) {
+                    int column = column(title.charAt(i));
+
+                    if (trie.get(state)[column] == 0) {
+                        trie.get(state)[column] = trie.size();
+                        trie.add(new int[columns]);
+                        trieMatches.add(Integer.MAX_VALUE);
+                    }
+
+                    state = trie.get(state)[column];
+                }
+
+                trieMatches.set(state, Math.min(trieMatches.get(state), owner));
+            }
+        }
+
+        transitions = new int[trie.size() * columns];
+        matches = new int[trie.size()];
+        int[] failures = new int[trie.size()];
+
+        for (int state = 0; state < trie.size(); state++) {
+            matches[state] = trieMatches.get(state);
+        }
+
+        // Walks the trie breadth-first, so each state's failure state is finished before it.
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < columns; column++) {
+            int child = trie.get(0)[column];
+            transitions[column] = child;
+
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failure = failures[state];
+            matches[state] = Math.min(matches[state], matches[failure]);
+
+            for (int column = 0; column < columns; column++) {
+                int child = trie.get(state)[column];
+                int fallback = transitions[failure * columns + column];
+
+                if (child == 0) {
+                    transitions[state * columns + column] = fallback;
+                } else {
+                    transitions[state * columns + column] = child;
+                    failures[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the first owner with a title that occurs in a window title.
+     *
+     * @param windowTitle The window title to search.
+     * @return The owner, or null if no title occurs.
+     */
+    public @Nullable T match(@NotNull CharSequence windowTitle) {
+        int owner = matchIndex(windowTitle);
+        return owner < 0 ? null : owners.get(owner);
+    }
+
+    /**
+     * Finds the index of the first owner with a title that occurs in a window title.
+     *
+     * @param windowTitle The window title to search.
+     * @return The owner's index, or -1 if no title occurs.
+     */
+    public int matchIndex(@NotNull CharSequence windowTitle) {
+        int state = 0;
+        int best = Integer.MAX_VALUE;
+
+        for (int i = 0; i < windowTitle.length() && best != 0; i++) {
+            state = transitions[state * columns + column(windowTitle.charAt(i))];
+            best = Math.min(best, matches[state]);
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Gets the owners this matcher was compiled for.
+     *
+     * @return The owners, in priority order.
+     */
+    public @NotNull List<T> getOwners() {
+        return owners;
+    }
+
+    /**
+     * Gets the table column of a character.
+     *
+     * @param c The character.
+     * @return The character's column, or 0 if it appears in no title.
+     */
+    private int column(char c) {
+        int index = Arrays.binarySearch(alphabet, c);
+        return index < 0 ? 0 : index + 1;
+    }
+}
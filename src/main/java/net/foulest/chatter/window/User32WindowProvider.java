@@ -0,0 +1,76 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.window;
+
+import com.sun.jna.Native;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.win32.StdCallLibrary;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+/**
+ * Window provider backed by the Windows user32.dll library.
+ * <p>
+ * This provider reuses its native buffers and is meant to be
+ * polled from a single thread, such as a {@link FocusTracker}.
+ */
+public class User32WindowProvider implements WindowProvider {
+
+    private static final int MAX_TITLE_LENGTH = 512;
+
+    private final byte[] windowText = new byte[MAX_TITLE_LENGTH];
+    private final WinDef.RECT rect = new WinDef.RECT();
+
+    /**
+     * Interface for the user32.dll library.
+     * This is used to get the title and bounds of the current foreground window.
+     */
+    interface MyUser32 extends StdCallLibrary {
+
+        MyUser32 INSTANCE = Native.load("user32", MyUser32.class);
+
+        WinDef.HWND getForegroundWindow();
+
+        void getWindowTextA(WinDef.HWND hWnd, byte[] lpString, int nMaxCount);
+
+        boolean getWindowRect(WinDef.HWND hWnd, WinDef.RECT rect);
+    }
+
+    @Override
+    public @Nullable String getForegroundWindowTitle() {
+        WinDef.HWND hwnd = MyUser32.INSTANCE.getForegroundWindow();
+
+        if (hwnd == null) {
+            return null;
+        }
+
+        MyUser32.INSTANCE.getWindowTextA(hwnd, windowText, MAX_TITLE_LENGTH);
+        return Native.toString(windowText).trim();
+    }
+
+    @Override
+    public @Nullable Rectangle getForegroundWindowBounds() {
+        WinDef.HWND hwnd = MyUser32.INSTANCE.getForegroundWindow();
+
+        if (hwnd == null || !MyUser32.INSTANCE.getWindowRect(hwnd, rect)) {
+            return null;
+        }
+        return new Rectangle(rect.left, rect.top, rect.right - rect.left, rect.bottom - rect.top);
+    }
+}
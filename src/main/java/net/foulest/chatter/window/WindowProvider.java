@@ -0,0 +1,42 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.window;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+/**
+ * Provides information about the current foreground window.
+ */
+public interface WindowProvider {
+
+    /**
+     * Gets the title of the current foreground window.
+     *
+     * @return The title of the foreground window, or null if there is none.
+     */
+    @Nullable String getForegroundWindowTitle();
+
+    /**
+     * Gets the screen bounds of the current foreground window.
+     *
+     * @return The bounds of the foreground window, or null if there is none.
+     */
+    @Nullable Rectangle getForegroundWindowBounds();
+}
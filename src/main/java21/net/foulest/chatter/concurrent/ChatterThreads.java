@@ -0,0 +1,71 @@
+/*
+ * Chatter - a Twitch chat utility that translates chat messages into key presses.
+ * Copyright (C) 2024 Foulest (https://github.com/Foulest)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.foulest.chatter.concurrent;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Creates the threads Chatter's services and pipelines run on.
+ * <p>
+ * This is the Java 21 version, packed into the multi-release jar in place
+ * of the Java 8 one. Every scheduler and blocking task runs on a virtual
+ * thread, so each channel group's vote engine, focus tracker and actuator
+ * park on a few hundred bytes of heap between events instead of holding a
+ * platform thread's stack. Virtual threads are always daemon threads, so
+ * they don't keep Chatter running on their own either.
+ */
+public final class ChatterThreads {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ChatterThreads() {
+    }
+
+    /**
+     * Creates a scheduler that runs its tasks one at a time, in order, on a single thread.
+     *
+     * @param name The name of the scheduler's thread.
+     * @return The scheduler.
+     */
+    public static @NotNull ScheduledThreadPoolExecutor newScheduler(@NotNull String name) {
+        return new ScheduledThreadPoolExecutor(1, Thread.ofVirtual().name(name).factory());
+    }
+
+    /**
+     * Starts a thread for a task that spends most of its time blocked, such as waiting for file changes.
+     *
+     * @param name The name of the thread.
+     * @param task The task to run.
+     * @return The started thread.
+     */
+    public static @NotNull Thread start(@NotNull String name, @NotNull Runnable task) {
+        return Thread.ofVirtual().name(name).start(task);
+    }
+
+    /**
+     * Describes the threads this version creates, for the startup log.
+     *
+     * @return The description.
+     */
+    public static @NotNull String describe() {
+        return "virtual threads (Java " + System.getProperty("java.specification.version") + ")";
+    }
+}